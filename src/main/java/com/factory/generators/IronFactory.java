@@ -4,8 +4,11 @@ import com.factory.generators.commands.CasinoCommand;
 import com.factory.generators.commands.DatabaseCommand;
 import com.factory.generators.commands.FactoryCommand;
 import com.factory.generators.listeners.CasinoListener;
+import com.factory.generators.listeners.ChunkListener;
 import com.factory.generators.listeners.GeneratorListener;
+import com.factory.generators.listeners.PlayerGridListener;
 import com.factory.generators.managers.*;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class IronFactory extends JavaPlugin {
@@ -18,6 +21,7 @@ public class IronFactory extends JavaPlugin {
     private MultiBlockManager multiBlockManager;
     private EventManager eventManager;
     private CasinoManager casinoManager;
+    private EffectDispatcher effectDispatcher;
     private int taskId = -1;
 
     @Override
@@ -31,6 +35,7 @@ public class IronFactory extends JavaPlugin {
         this.multiBlockManager = new MultiBlockManager(this);
         this.eventManager = new EventManager(this);
         this.casinoManager = new CasinoManager(this, configManager);
+        this.effectDispatcher = new EffectDispatcher(this);
 
         configManager.loadConfigs();
         dataManager.loadGenerators();
@@ -40,6 +45,12 @@ public class IronFactory extends JavaPlugin {
 
         getServer().getPluginManager().registerEvents(new GeneratorListener(this), this);
         getServer().getPluginManager().registerEvents(new CasinoListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerGridListener(this), this);
+        // Игроки, зашедшие до включения плагина (/reload)
+        for (Player player : getServer().getOnlinePlayers()) {
+            generatorManager.getPlayerGrid().update(player, player.getLocation());
+        }
 
         // Register main command
         getCommand("factory").setExecutor(new FactoryCommand(this));
@@ -57,37 +68,40 @@ public class IronFactory extends JavaPlugin {
         getCommand("dbrestore").setTabCompleter(dbCommand);
         getCommand("dblist").setExecutor(dbCommand);
         getCommand("dblist").setTabCompleter(dbCommand);
+        getCommand("dbstatus").setExecutor(dbCommand);
+        getCommand("dbstatus").setTabCompleter(dbCommand);
 
         // Register casino command
         CasinoCommand casinoCommand = new CasinoCommand(this);
         getCommand("casino").setExecutor(casinoCommand);
 
         startTask();
+        // Голограммы остатков прошлого запуска в уже загруженных чанках - после восстановления буровых (40 тиков)
+        getServer().getScheduler().runTaskLater(this, hologramManager::reconcileLoadedChunks, 60L);
 
         getLogger().info("§a[IronFactory] Загружено!");
-        getLogger().info("§a[IronFactory] Команды зарегистрированы: /factory, /dbexport, /dbimport, /dbbackup, /dbrestore, /dblist, /casino");
-        getLogger().info("§a[IronFactory] Генераторов: " + generatorManager.getPlacedGenerators().size());
+        getLogger().info("§a[IronFactory] Команды зарегистрированы: /factory, /dbexport, /dbimport, /dbbackup, /dbrestore, /dblist, /dbstatus, /casino");
+        getLogger().info("§a[IronFactory] Генераторов: " + generatorManager.getGeneratorCount());
         getLogger().info("§a[IronFactory] Буровых: " + multiBlockManager.getStructures().size());
     }
 
     @Override
     public void onDisable() {
         if (taskId != -1) getServer().getScheduler().cancelTask(taskId);
+        if (generatorManager != null) generatorManager.flushDrops();
         if (dataManager != null) {
-            dataManager.saveGenerators();
-            dataManager.saveMultiBlockStructures();
+            // При выключении - полностью, чтобы сохранить прогресс таймеров
+            dataManager.saveGenerators(true);
+            dataManager.saveMultiBlockStructures(true);
+            dataManager.shutdown();
         }
         if (hologramManager != null) hologramManager.removeAllHolograms();
         getLogger().info("§c[IronFactory] Выключен!");
     }
 
     private void startTask() {
-        taskId = getServer().getScheduler().runTaskTimer(this, () -> {
-            generatorManager.tickAllGenerators();
-            multiBlockManager.tickAll();
-            eventManager.tickAilments();
-            eventManager.checkEarthquake();
-        }, 20L, 20L).getTaskId();
+        // Работа размазана по всем 20 тикам секунды с бюджетом на тик
+        taskId = getServer().getScheduler().runTaskTimer(this, new TickLoop(this), 1L, 1L).getTaskId();
     }
 
     public void reload() {
@@ -105,4 +119,5 @@ public class IronFactory extends JavaPlugin {
     public MultiBlockManager getMultiBlockManager() { return multiBlockManager; }
     public EventManager getEventManager() { return eventManager; }
     public CasinoManager getCasinoManager() { return casinoManager; }
+    public EffectDispatcher getEffectDispatcher() { return effectDispatcher; }
 }
\ No newline at end of file
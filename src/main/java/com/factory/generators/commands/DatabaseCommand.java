@@ -3,6 +3,10 @@ package com.factory.generators.commands;
 import com.factory.generators.IronFactory;
 import com.factory.generators.database.DataExporter;
 import com.factory.generators.database.DataImporter;
+import com.factory.generators.database.SqlGeneratorStorage;
+import com.factory.generators.database.WriteBehindQueue;
+import com.factory.generators.managers.GeneratorStorage;
+import com.factory.generators.models.PlacedGenerator;
 import com.factory.generators.utils.Constants;
 import com.factory.generators.utils.Logger;
 import com.factory.generators.utils.Utils;
@@ -18,8 +22,8 @@ import java.util.Arrays;
 import java.util.List;
 
 /**
- * Commands for database management: export, import, backup, restore.
- * Usage: /dbexport, /dbimport, /dbbackup, /dbrestore
+ * Commands for database management: export, import, backup, restore, status.
+ * Usage: /dbexport, /dbimport, /dbbackup, /dbrestore, /dbstatus
  */
 public class DatabaseCommand implements CommandExecutor, TabCompleter {
 
@@ -42,6 +46,11 @@ public class DatabaseCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        if ("dbstatus".equalsIgnoreCase(command.getName())) {
+            handleStatus(sender);
+            return true;
+        }
+
         if (args.length == 0) {
             sendHelp(sender);
             return true;
@@ -65,6 +74,9 @@ public class DatabaseCommand implements CommandExecutor, TabCompleter {
             case "list":
                 handleListBackups(sender);
                 break;
+            case "status":
+                handleStatus(sender);
+                break;
             case "help":
                 sendHelp(sender);
                 break;
@@ -212,6 +224,28 @@ public class DatabaseCommand implements CommandExecutor, TabCompleter {
         sendMessage(sender, "&7Всего: " + backups.length);
     }
 
+    /**
+     * Shows where generators are stored and how the database write queue is doing.
+     */
+    private void handleStatus(@NotNull CommandSender sender) {
+        GeneratorStorage storage = plugin.getDataManager().getStorage();
+
+        sendMessage(sender, "&8&m-----------&r &6Хранилище &8&m-----------");
+        if (!(storage instanceof SqlGeneratorStorage)) {
+            sendMessage(sender, "&7Генераторы хранятся в файлах регионов");
+            return;
+        }
+
+        SqlGeneratorStorage sql = (SqlGeneratorStorage) storage;
+        WriteBehindQueue<PlacedGenerator> queue = sql.getQueue();
+        sendMessage(sender, "&7Генераторы хранятся в базе данных");
+        sendMessage(sender, "&7Очередь записи: &e" + sql.getQueueDepth()
+                + (queue.isFlushing() ? " &7(идёт сброс)" : ""));
+        sendMessage(sender, String.format("&7Сброс: последний &e%.1f мс&7, средний &e%.1f мс&7, макс. &e%.1f мс",
+                queue.getLastFlushMillis(), queue.getAverageFlushMillis(), queue.getMaxFlushMillis()));
+        sendMessage(sender, "&7Сбросов: &e" + queue.getFlushCount() + " &7(неудачных: &c" + queue.getFailedFlushCount() + "&7)");
+    }
+
     /**
      * Sends help message.
      */
@@ -222,6 +256,7 @@ public class DatabaseCommand implements CommandExecutor, TabCompleter {
         sendMessage(sender, "&e/dbbackup &7- Создать полную резервную копию");
         sendMessage(sender, "&e/dbrestore [type] &7- Восстановить из последней копии");
         sendMessage(sender, "&e/dblist &7- Показать все резервные копии");
+        sendMessage(sender, "&e/dbstatus &7- Очередь записи в базу данных");
     }
 
     /**
@@ -241,7 +276,7 @@ public class DatabaseCommand implements CommandExecutor, TabCompleter {
         }
 
         if (args.length == 1) {
-            completions.addAll(Arrays.asList("export", "import", "backup", "restore", "list", "help"));
+            completions.addAll(Arrays.asList("export", "import", "backup", "restore", "list", "status", "help"));
         } else if (args.length == 2 && "export".equals(args[0].toLowerCase())) {
             completions.addAll(Arrays.asList("generators", "multiblock", "all"));
         } else if (args.length == 2 && "import".equals(args[0].toLowerCase())) {
@@ -1,6 +1,8 @@
 package com.factory.generators.commands;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.managers.EffectDispatcher;
+import com.factory.generators.managers.HologramManager;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.MultiBlockStructure;
 import com.factory.generators.models.PlacedGenerator;
@@ -278,8 +280,12 @@ public class FactoryCommand implements CommandExecutor, TabCompleter {
     private void handleInfo(@NotNull CommandSender sender) {
         sendMessage(sender, "&8&m-----------&r &6IronFactory &8&m-----------");
         sendMessage(sender, "&7Версия: &f" + plugin.getDescription().getVersion());
-        sendMessage(sender, "&7Генераторов: &f" + plugin.getGeneratorManager().getPlacedGenerators().size());
+        sendMessage(sender, "&7Генераторов: &f" + plugin.getGeneratorManager().getGeneratorCount());
         sendMessage(sender, "&7Буровых: &f" + plugin.getMultiBlockManager().getStructures().size());
+        if (sender instanceof Player) {
+            sendMessage(sender, "&7Ваших генераторов: &f"
+                    + plugin.getGeneratorManager().countPlayerGenerators(((Player) sender).getUniqueId()));
+        }
     }
 
     /**
@@ -293,9 +299,19 @@ public class FactoryCommand implements CommandExecutor, TabCompleter {
             return;
         }
         sendMessage(sender, "&6=== ДЕБАГ ===");
-        sendMessage(sender, "&7Генераторов: &f" + plugin.getGeneratorManager().getPlacedGenerators().size());
+        sendMessage(sender, "&7Генераторов: &f" + plugin.getGeneratorManager().getGeneratorCount());
+        sendMessage(sender, "&7Чанков (активных/всего): &f" + plugin.getGeneratorManager().getBuckets().getActiveBucketCount()
+                + "/" + plugin.getGeneratorManager().getBuckets().getBucketCount());
         sendMessage(sender, "&7Буровых: &f" + plugin.getMultiBlockManager().getStructures().size());
-        plugin.getHologramManager().debugHolograms();
+        HologramManager holograms = plugin.getHologramManager();
+        sendMessage(sender, "&7Обновлений голограмм (всего/пропущено): &f" + holograms.getUpdateCount()
+                + "/" + holograms.getSkippedUpdates());
+        sendMessage(sender, "&7Голограмм (заспавнено/всего): &f" + holograms.getSpawnedCount()
+                + "/" + holograms.getHologramCount());
+        holograms.debugHolograms();
+        EffectDispatcher effects = plugin.getEffectDispatcher();
+        sendMessage(sender, "&7Эффекты (в очереди/слито/некому/лимит/отправлено): &f" + effects.getQueued()
+                + "/" + effects.getMerged() + "/" + effects.getCulled() + "/" + effects.getThrottled() + "/" + effects.getSent());
     }
 
     /**
@@ -318,6 +334,7 @@ public class FactoryCommand implements CommandExecutor, TabCompleter {
             for (GeneratorType type : plugin.getConfigManager().getGeneratorTypes().values()) {
                 type.setDelay(seconds * Constants.Timing.TICKS_PER_SECOND);
             }
+            plugin.getGeneratorManager().rescheduleAll();
             sendMessage(sender, Constants.Messages.SUCCESS_PREFIX + "Задержка: " + seconds + " сек");
             Logger.info(sender.getName() + " changed generator delay to " + seconds + "s");
         } catch (NumberFormatException e) {
@@ -345,7 +362,7 @@ public class FactoryCommand implements CommandExecutor, TabCompleter {
         }
         GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
         if (type != null) {
-            generator.setCurrentTick(type.getDelay());
+            plugin.getGeneratorManager().setProgress(generator, type.getDelay());
             sendMessage(sender, Constants.Messages.SUCCESS_PREFIX + "Генератор сработает!");
         }
     }
@@ -38,18 +38,17 @@ public class DataExporter {
     public boolean exportGenerators() {
         try {
             YamlConfiguration config = new YamlConfiguration();
-            Map<String, PlacedGenerator> generators = plugin.getGeneratorManager().getPlacedGenerators();
+            int[] exported = {0};
 
-            for (Map.Entry<String, PlacedGenerator> entry : generators.entrySet()) {
-                PlacedGenerator g = entry.getValue();
+            plugin.getGeneratorManager().forEachGenerator(g -> {
 
                 // Validate location before exporting
-                if (g == null || g.getLocation() == null || g.getLocation().getWorld() == null) {
-                    Logger.warn("Skipping generator with invalid location: " + entry.getKey());
-                    continue;
+                if (g.getLocation() == null || g.getLocation().getWorld() == null) {
+                    Logger.warn("Skipping generator with invalid location: " + g.getLocationKey());
+                    return;
                 }
 
-                String path = "generators." + entry.getKey();
+                String path = "generators." + g.getLocationKey();
                 try {
                     config.set(path + ".type", g.getTypeId());
                     config.set(path + ".owner", g.getOwnerUUID().toString());
@@ -57,20 +56,21 @@ public class DataExporter {
                     config.set(path + ".x", g.getLocation().getBlockX());
                     config.set(path + ".y", g.getLocation().getBlockY());
                     config.set(path + ".z", g.getLocation().getBlockZ());
-                    config.set(path + ".current-tick", g.getCurrentTick());
+                    config.set(path + ".current-tick", plugin.getGeneratorManager().getProgressTicks(g));
                     config.set(path + ".total-generated", g.getTotalGenerated());
                     config.set(path + ".broken", g.isBroken());
                     config.set(path + ".upgrade-level", g.getUpgradeLevel());
                     config.set(path + ".exported-time", System.currentTimeMillis());
+                    exported[0]++;
                 } catch (Exception e) {
-                    Logger.warn("Error exporting generator: " + entry.getKey(), e);
+                    Logger.warn("Error exporting generator: " + g.getLocationKey(), e);
                 }
-            }
+            });
 
             File backupFile = getBackupFile("generators");
             config.save(backupFile);
 
-            Logger.info("Exported " + generators.size() + " generators to " + backupFile.getName());
+            Logger.info("Exported " + exported[0] + " generators to " + backupFile.getName());
             return true;
         } catch (IOException e) {
             Logger.error("Failed to export generators", e);
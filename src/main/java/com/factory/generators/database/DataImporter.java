@@ -101,7 +101,7 @@ public class DataImporter {
             }
 
             if (!merge) {
-                plugin.getGeneratorManager().getPlacedGenerators().clear();
+                plugin.getGeneratorManager().clearGenerators();
             }
 
             int count = 0;
@@ -113,7 +113,7 @@ public class DataImporter {
                     PlacedGenerator generator = loadGeneratorFromSection(key, gen);
                     if (generator != null) {
                         // Сохраняем генератор в память (Map)
-                        plugin.getGeneratorManager().getPlacedGenerators().put(key, generator);
+                        plugin.getGeneratorManager().registerGenerator(generator);
 
                         // ВАЖНО: восстанавливаем физический блок в мире!
                         // При импорте мир может быть "чистым" — данные есть, но блока нет.
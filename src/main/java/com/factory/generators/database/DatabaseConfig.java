@@ -38,6 +38,7 @@ public class DatabaseConfig {
     private final String filePath; // For SQLite
     private final int maxPoolSize;
     private final boolean useSSL;
+    private final int cacheSizeMb; // For SQLite
 
     private DatabaseConfig(@NotNull Builder builder) {
         this.type = builder.type;
@@ -49,6 +50,7 @@ public class DatabaseConfig {
         this.filePath = builder.filePath;
         this.maxPoolSize = builder.maxPoolSize;
         this.useSSL = builder.useSSL;
+        this.cacheSizeMb = builder.cacheSizeMb;
     }
 
     /**
@@ -109,6 +111,20 @@ public class DatabaseConfig {
         return useSSL;
     }
 
+    public int getCacheSizeMb() {
+        return cacheSizeMb;
+    }
+
+    /**
+     * Gets the SQL dialect of this database type.
+     *
+     * @return SQL dialect
+     */
+    @NotNull
+    public SqlDialect getDialect() {
+        return SqlDialect.of(type);
+    }
+
     /**
      * Builder for DatabaseConfig.
      */
@@ -122,6 +138,7 @@ public class DatabaseConfig {
         private String filePath = "plugins/IronFactory/data.db";
         private int maxPoolSize = 10;
         private boolean useSSL = false;
+        private int cacheSizeMb = 16;
 
         public Builder type(@NotNull DatabaseType type) {
             this.type = type;
@@ -168,6 +185,11 @@ public class DatabaseConfig {
             return this;
         }
 
+        public Builder cacheSizeMb(int cacheSizeMb) {
+            this.cacheSizeMb = Math.max(1, cacheSizeMb);
+            return this;
+        }
+
         /**
          * Builds DatabaseConfig from YAML configuration.
          *
@@ -6,7 +6,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -16,20 +19,27 @@ import java.util.UUID;
  */
 public class DatabaseManager {
 
-    // Cached SQL queries to avoid repeated string creation
-    private static final Map<String, String> SQL_QUERIES = new HashMap<>();
+    private static final String[] GENERATOR_COLUMNS = {
+        "location_key", "world", "x", "y", "z", "owner_uuid", "type_id", "created_time", "last_ticked",
+        "total_generated", "is_broken", "current_tick", "upgrade_level", "mine_health", "storage"
+    };
+    private static final String[] STATISTICS_COLUMNS = {
+        "player_uuid", "generators_placed", "generators_broken", "generators_upgraded",
+        "resources_generated", "last_update"
+    };
 
     private final DatabaseConfig config;
+    private final SqlDialect dialect;
     private final HikariConnectionPool connectionPool;
+    // Cached SQL queries to avoid repeated string creation, built for the configured dialect
+    private final Map<String, String> queries = new HashMap<>();
+    private final List<String> schema = new ArrayList<>();
     private boolean connected = false;
 
-    static {
-        // Pre-cache commonly used queries
-        initializeQueries();
-    }
-
     public DatabaseManager(@NotNull DatabaseConfig config) {
         this.config = config;
+        this.dialect = config.getDialect();
+        initializeQueries();
         try {
             this.connectionPool = new HikariConnectionPool(config);
         } catch (Exception e) {
@@ -39,80 +49,85 @@ public class DatabaseManager {
     }
 
     /**
-     * Initializes all cached SQL queries.
+     * Initializes the table DDL and all cached SQL queries.
      */
-    private static void initializeQueries() {
+    private void initializeQueries() {
+        // Generator table
+        Map<String, String> generatorIndexes = new LinkedHashMap<>();
+        generatorIndexes.put("idx_owner", "`owner_uuid`");
+        generatorIndexes.put("idx_world_coords", "`world`, `x`, `z`");
+        generatorIndexes.put("idx_world_id", "`world`, `id`");
+        generatorIndexes.put("idx_created_time", "`created_time`");
+        generatorIndexes.put("idx_type", "`type_id`");
+        schema.addAll(dialect.createTable("cp_generators", List.of(
+            "`location_key` VARCHAR(100) NOT NULL UNIQUE",
+            "`world` VARCHAR(50) NOT NULL",
+            "`x` INT NOT NULL",
+            "`y` INT NOT NULL",
+            "`z` INT NOT NULL",
+            "`owner_uuid` VARCHAR(36) NOT NULL",
+            "`type_id` VARCHAR(50) NOT NULL",
+            "`created_time` BIGINT NOT NULL",
+            "`last_ticked` BIGINT NOT NULL",
+            "`total_generated` BIGINT DEFAULT 0",
+            "`is_broken` BOOLEAN DEFAULT FALSE",
+            "`current_tick` INT DEFAULT 0",
+            "`upgrade_level` INT DEFAULT 0",
+            "`mine_health` INT DEFAULT 0",
+            "`storage` TEXT NULL"
+        ), generatorIndexes));
+
+        // Statistics table
+        Map<String, String> statisticsIndexes = new LinkedHashMap<>();
+        statisticsIndexes.put("idx_uuid", "`player_uuid`");
+        statisticsIndexes.put("idx_last_update", "`last_update`");
+        schema.addAll(dialect.createTable("cp_statistics", List.of(
+            "`player_uuid` VARCHAR(36) NOT NULL UNIQUE",
+            "`generators_placed` BIGINT DEFAULT 0",
+            "`generators_broken` BIGINT DEFAULT 0",
+            "`generators_upgraded` BIGINT DEFAULT 0",
+            "`resources_generated` BIGINT DEFAULT 0",
+            "`last_update` BIGINT NOT NULL"
+        ), statisticsIndexes));
+
         // Generator queries
-        SQL_QUERIES.put("create_generators_table",
-            "CREATE TABLE IF NOT EXISTS `cp_generators` (" +
-            "  `id` INT AUTO_INCREMENT PRIMARY KEY," +
-            "  `location_key` VARCHAR(100) NOT NULL UNIQUE," +
-            "  `world` VARCHAR(50) NOT NULL," +
-            "  `x` INT NOT NULL," +
-            "  `y` INT NOT NULL," +
-            "  `z` INT NOT NULL," +
-            "  `owner_uuid` VARCHAR(36) NOT NULL," +
-            "  `type_id` VARCHAR(50) NOT NULL," +
-            "  `created_time` BIGINT NOT NULL," +
-            "  `last_ticked` BIGINT NOT NULL," +
-            "  `total_generated` BIGINT DEFAULT 0," +
-            "  `is_broken` BOOLEAN DEFAULT FALSE," +
-            "  INDEX `idx_owner` (`owner_uuid`)," +
-            "  INDEX `idx_world_coords` (`world`, `x`, `z`)," +
-            "  INDEX `idx_created_time` (`created_time`)," +
-            "  INDEX `idx_type` (`type_id`)" +
-            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
-
-        SQL_QUERIES.put("create_statistics_table",
-            "CREATE TABLE IF NOT EXISTS `cp_statistics` (" +
-            "  `id` INT AUTO_INCREMENT PRIMARY KEY," +
-            "  `player_uuid` VARCHAR(36) NOT NULL UNIQUE," +
-            "  `generators_placed` BIGINT DEFAULT 0," +
-            "  `generators_broken` BIGINT DEFAULT 0," +
-            "  `generators_upgraded` BIGINT DEFAULT 0," +
-            "  `resources_generated` BIGINT DEFAULT 0," +
-            "  `last_update` BIGINT NOT NULL," +
-            "  INDEX `idx_uuid` (`player_uuid`)," +
-            "  INDEX `idx_last_update` (`last_update`)" +
-            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
-
-        SQL_QUERIES.put("insert_generator",
-            "INSERT INTO `cp_generators` " +
-            "(location_key, world, x, y, z, owner_uuid, type_id, created_time, last_ticked, total_generated, is_broken) " +
-            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-
-        SQL_QUERIES.put("update_generator",
+        queries.put("insert_generator",
+            "INSERT INTO `cp_generators` (" + String.join(", ", GENERATOR_COLUMNS) + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+        // Same columns as insert_generator; an existing row keeps its id
+        queries.put("upsert_generator", dialect.upsert("cp_generators", GENERATOR_COLUMNS, "location_key"));
+
+        queries.put("update_generator",
             "UPDATE `cp_generators` " +
             "SET `last_ticked`=?, `total_generated`=?, `is_broken`=? " +
             "WHERE `location_key`=?");
 
-        SQL_QUERIES.put("delete_generator",
+        queries.put("delete_generator",
             "DELETE FROM `cp_generators` WHERE `location_key`=?");
 
-        SQL_QUERIES.put("select_by_owner",
+        queries.put("select_by_owner",
             "SELECT * FROM `cp_generators` WHERE `owner_uuid`=? ORDER BY `created_time` DESC");
 
-        SQL_QUERIES.put("select_by_location",
+        queries.put("select_by_location",
             "SELECT * FROM `cp_generators` WHERE `location_key`=? LIMIT 1");
 
-        SQL_QUERIES.put("select_all",
+        queries.put("select_all",
             "SELECT * FROM `cp_generators` ORDER BY `created_time` DESC");
 
-        SQL_QUERIES.put("select_by_world",
-            "SELECT * FROM `cp_generators` WHERE `world`=? ORDER BY `x`, `z`");
-
-        SQL_QUERIES.put("upsert_statistics",
-            "INSERT INTO `cp_statistics` " +
-            "(player_uuid, generators_placed, generators_broken, generators_upgraded, resources_generated, last_update) " +
-            "VALUES (?, ?, ?, ?, ?, ?) " +
-            "ON DUPLICATE KEY UPDATE " +
-            "generators_placed=VALUES(generators_placed), " +
-            "generators_broken=VALUES(generators_broken), " +
-            "generators_upgraded=VALUES(generators_upgraded), " +
-            "resources_generated=VALUES(resources_generated), " +
-            "last_update=VALUES(last_update)");
-
-        SQL_QUERIES.put("select_stats",
+        queries.put("select_by_world",
+            "SELECT * FROM `cp_generators` WHERE `world`=? AND `id`>? ORDER BY `id` LIMIT ?");
+
+        queries.put("select_worlds",
+            "SELECT DISTINCT `world` FROM `cp_generators`");
+
+        queries.put("select_any_generator",
+            "SELECT 1 FROM `cp_generators` LIMIT 1");
+
+        // Statistics queries
+        queries.put("upsert_statistics", dialect.upsert("cp_statistics", STATISTICS_COLUMNS, "player_uuid"));
+
+        queries.put("select_stats",
             "SELECT * FROM `cp_statistics` WHERE `player_uuid`=? LIMIT 1");
     }
 
@@ -148,14 +163,10 @@ public class DatabaseManager {
         try (Connection conn = connectionPool.getConnection();
              Statement stmt = conn.createStatement()) {
 
-            // Enable InnoDB for transactions
-            stmt.execute("SET SESSION storage_engine='InnoDB'");
-
-            // Create generators table
-            stmt.execute(SQL_QUERIES.get("create_generators_table"));
-
-            // Create statistics table
-            stmt.execute(SQL_QUERIES.get("create_statistics_table"));
+            // Tables and, where the dialect keeps them apart, their indexes
+            for (String statement : schema) {
+                stmt.execute(statement);
+            }
 
             Logger.info("Database tables created/verified");
         }
@@ -164,12 +175,12 @@ public class DatabaseManager {
     /**
      * Executes a parameterized query with efficient statement caching.
      *
-     * @param queryKey Query key from SQL_QUERIES
+     * @param queryKey Query key from the cached queries
      * @param params Parameters for prepared statement
      * @return true if execution successful
      */
     public boolean executeUpdate(@NotNull String queryKey, @NotNull Object... params) {
-        String query = SQL_QUERIES.get(queryKey);
+        String query = queries.get(queryKey);
         if (query == null) {
             Logger.warn("Query not found: " + queryKey);
             return false;
@@ -190,7 +201,7 @@ public class DatabaseManager {
     /**
      * Executes a query that returns results with automatic resource management.
      *
-     * @param queryKey Query key from SQL_QUERIES
+     * @param queryKey Query key from the cached queries
      * @param callback Callback to process ResultSet
      * @param params Parameters for prepared statement
      * @return true if successful
@@ -198,7 +209,7 @@ public class DatabaseManager {
     public boolean executeQueryWithCallback(@NotNull String queryKey,
                                            @NotNull ResultSetCallback callback,
                                            @NotNull Object... params) {
-        String query = SQL_QUERIES.get(queryKey);
+        String query = queries.get(queryKey);
         if (query == null) {
             Logger.warn("Query not found: " + queryKey);
             return false;
@@ -308,6 +319,16 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Gets the database settings this manager was created with.
+     *
+     * @return Database config
+     */
+    @NotNull
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
     /**
      * Closes all database connections.
      */
@@ -342,7 +363,17 @@ public class DatabaseManager {
      * @return SQL query or null
      */
     @Nullable
-    public static String getQuery(@NotNull String key) {
-        return SQL_QUERIES.get(key);
+    public String getQuery(@NotNull String key) {
+        return queries.get(key);
+    }
+
+    /**
+     * Gets the SQL dialect of the configured database.
+     *
+     * @return SQL dialect
+     */
+    @NotNull
+    public SqlDialect getDialect() {
+        return dialect;
     }
 }
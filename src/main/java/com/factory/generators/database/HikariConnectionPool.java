@@ -5,8 +5,10 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * HikariCP-based connection pool implementation (как в CoreProtect).
@@ -42,6 +44,18 @@ public class HikariConnectionPool {
         hConfig.setPassword(config.getPassword());
         hConfig.setDriverClassName(config.getJdbcDriver());
 
+        // Настройки драйвера под диалект (для SQLite - PRAGMA каждого соединения)
+        for (Map.Entry<String, String> property : config.getDialect().driverProperties(config).entrySet()) {
+            hConfig.addDataSourceProperty(property.getKey(), property.getValue());
+        }
+        if (config.getType() == DatabaseConfig.DatabaseType.SQLITE) {
+            // SQLite не создаёт папку под файл базы сам
+            File parent = new File(config.getFilePath()).getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                Logger.warn("Cannot create database directory: " + parent);
+            }
+        }
+
         // Оптимизация размера пула
         // Для Minecraft плагина: обычно 5-10 соединений достаточно
         int maxPoolSize = Math.min(config.getMaxPoolSize(), 20);
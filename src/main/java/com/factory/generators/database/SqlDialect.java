@@ -0,0 +1,137 @@
+package com.factory.generators.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of the SQL that differ between MySQL and SQLite: the auto-increment
+ * key, table options, index DDL and upsert syntax, plus driver properties.
+ * {@link DatabaseManager} builds its queries through the dialect of the configured database.
+ */
+public enum SqlDialect {
+
+    MYSQL {
+        @Override
+        public List<String> createTable(@NotNull String table, @NotNull List<String> columns,
+                                        @NotNull Map<String, String> indexes) {
+            StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS `").append(table).append("` (")
+                    .append("  `id` INT AUTO_INCREMENT PRIMARY KEY");
+            for (String column : columns) {
+                sql.append(",  ").append(column);
+            }
+            // Индексы - прямо в CREATE TABLE: в MySQL нет CREATE INDEX IF NOT EXISTS
+            for (Map.Entry<String, String> index : indexes.entrySet()) {
+                sql.append(",  INDEX `").append(index.getKey()).append("` (").append(index.getValue()).append(")");
+            }
+            sql.append(") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+            return List.of(sql.toString());
+        }
+
+        @Override
+        public String upsert(@NotNull String table, @NotNull String[] columns, @NotNull String key) {
+            StringBuilder sql = insert(table, columns).append(" ON DUPLICATE KEY UPDATE ");
+            appendUpdates(sql, columns, key, "%1$s=VALUES(%1$s)");
+            return sql.toString();
+        }
+
+        @Override
+        public Map<String, String> driverProperties(@NotNull DatabaseConfig config) {
+            Map<String, String> properties = new LinkedHashMap<>();
+            // Пачка INSERT уходит одним многострочным запросом, а не по строке за раз
+            properties.put("rewriteBatchedStatements", "true");
+            properties.put("cachePrepStmts", "true");
+            properties.put("prepStmtCacheSize", "64");
+            return properties;
+        }
+    },
+
+    SQLITE {
+        @Override
+        public List<String> createTable(@NotNull String table, @NotNull List<String> columns,
+                                        @NotNull Map<String, String> indexes) {
+            List<String> statements = new ArrayList<>();
+            // INTEGER PRIMARY KEY - это rowid: растёт сам, без отдельного AUTOINCREMENT
+            StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS `").append(table).append("` (")
+                    .append("  `id` INTEGER PRIMARY KEY");
+            for (String column : columns) {
+                sql.append(",  ").append(column);
+            }
+            statements.add(sql.append(")").toString());
+            // Имена индексов в SQLite общие на всю базу - с префиксом таблицы
+            for (Map.Entry<String, String> index : indexes.entrySet()) {
+                statements.add("CREATE INDEX IF NOT EXISTS `" + table + "_" + index.getKey() + "` ON `"
+                        + table + "` (" + index.getValue() + ")");
+            }
+            return statements;
+        }
+
+        @Override
+        public String upsert(@NotNull String table, @NotNull String[] columns, @NotNull String key) {
+            StringBuilder sql = insert(table, columns).append(" ON CONFLICT(`").append(key).append("`) DO UPDATE SET ");
+            appendUpdates(sql, columns, key, "%1$s=excluded.%1$s");
+            return sql.toString();
+        }
+
+        @Override
+        public Map<String, String> driverProperties(@NotNull DatabaseConfig config) {
+            Map<String, String> properties = new LinkedHashMap<>();
+            // WAL: чтение не ждёт записи, коммит - дозапись в журнал без перезаписи страниц
+            properties.put("journal_mode", "WAL");
+            // С WAL данные не теряются при падении процесса, fsync - только на чекпоинтах
+            properties.put("synchronous", "NORMAL");
+            // Отрицательное значение - размер кэша страниц в КБ
+            properties.put("cache_size", String.valueOf(-config.getCacheSizeMb() * 1024L));
+            properties.put("temp_store", "MEMORY");
+            // Параллельная загрузка миров и поток записи ждут блокировку, а не падают с SQLITE_BUSY
+            properties.put("busy_timeout", "10000");
+            return properties;
+        }
+    };
+
+    /**
+     * Statements creating the table (with an auto-increment {@code id} key) and its indexes.
+     *
+     * @param columns column definitions
+     * @param indexes index name to indexed columns
+     */
+    public abstract List<String> createTable(@NotNull String table, @NotNull List<String> columns,
+                                             @NotNull Map<String, String> indexes);
+
+    /**
+     * INSERT that updates every other column when a row with the same unique {@code key} exists.
+     */
+    public abstract String upsert(@NotNull String table, @NotNull String[] columns, @NotNull String key);
+
+    /**
+     * JDBC driver properties set on every pooled connection.
+     */
+    public abstract Map<String, String> driverProperties(@NotNull DatabaseConfig config);
+
+    @NotNull
+    public static SqlDialect of(@NotNull DatabaseConfig.DatabaseType type) {
+        return type == DatabaseConfig.DatabaseType.SQLITE ? SQLITE : MYSQL;
+    }
+
+    private static StringBuilder insert(String table, String[] columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO `").append(table).append("` (")
+                .append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")");
+    }
+
+    private static void appendUpdates(StringBuilder sql, String[] columns, String key, String format) {
+        boolean first = true;
+        for (String column : columns) {
+            if (column.equals(key)) continue;
+            if (!first) sql.append(", ");
+            sql.append(String.format(format, column));
+            first = false;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.factory.generators.database;
+
+import com.factory.generators.IronFactory;
+import com.factory.generators.managers.GeneratorJournal;
+import com.factory.generators.managers.GeneratorManager;
+import com.factory.generators.managers.GeneratorStorage;
+import com.factory.generators.models.GeneratorType;
+import com.factory.generators.models.PlacedGenerator;
+import com.factory.generators.utils.Logger;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Generators in the {@code cp_generators} table.
+ * A save snapshots the changed generators into plain rows on the main thread;
+ * one database thread writes them as a single transaction of JDBC batches
+ * (deletes of removed generators, then upserts by location key). A write that
+ * fails stays pending and is retried every flush interval, together with
+ * whatever was queued since.
+ * Between saves, changed generators go through a write-behind queue that is
+ * flushed every few seconds (or sooner once it fills up), so the table stays
+ * close to live without a round trip per change.
+ * Loading reads the worlds in parallel, each a page at a time by primary key.
+ */
+public class SqlGeneratorStorage implements GeneratorStorage {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final IronFactory plugin;
+    private final DatabaseManager database;
+    private final ExecutorService executor;
+    private final BukkitTask flushTask;
+    // Изменения с прошлого сброса - по одной записи на генератор (основной поток)
+    private final WriteBehindQueue<PlacedGenerator> queue = new WriteBehindQueue<>();
+    // Изменённые с прошлого сохранения, которых нет в очереди (основной поток)
+    private final Map<String, PlacedGenerator> dirty = new LinkedHashMap<>();
+    // Ещё не записанное в базу, включая неудачные сохранения (поток базы)
+    private final Map<String, Row> pendingRows = new LinkedHashMap<>();
+    private final Set<String> pendingDeletes = new LinkedHashSet<>();
+    private volatile int pendingCount;
+
+    /**
+     * Column values of one generator, taken on the main thread.
+     */
+    static final class Row {
+        final String locationKey;
+        final String world;
+        final int x, y, z;
+        final String owner;
+        final String typeId;
+        final long createdTime;
+        final long lastEvaluated;
+        final long totalGenerated;
+        final boolean broken;
+        final int currentTick;
+        final int upgradeLevel;
+        final int mineHealth;
+        final String storage;
+
+        Row(PlacedGenerator g, int currentTick, String storage) {
+            this.locationKey = g.getLocationKey();
+            this.world = g.getWorldName();
+            this.x = g.getX();
+            this.y = g.getY();
+            this.z = g.getZ();
+            this.owner = (g.hasOwner() ? g.getOwnerUUID() : PlacedGenerator.NO_OWNER).toString();
+            this.typeId = g.getTypeId();
+            this.createdTime = g.getPlacedTime();
+            this.lastEvaluated = g.getLastEvaluated();
+            this.totalGenerated = g.getTotalGenerated();
+            this.broken = g.isBroken();
+            this.currentTick = currentTick;
+            this.upgradeLevel = g.getUpgradeLevel();
+            this.mineHealth = g.getMineHealth();
+            this.storage = storage;
+        }
+    }
+
+    public SqlGeneratorStorage(@NotNull IronFactory plugin, @NotNull DatabaseManager database) {
+        this.plugin = plugin;
+        this.database = database;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IronFactory-SQL");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Keys waiting in the queue plus rows handed to the database thread but not written yet.
+     */
+    public int getQueueDepth() {
+        return queue.size() + pendingCount;
+    }
+
+    /**
+     * The write-behind queue, for its flush statistics.
+     */
+    @NotNull
+    public WriteBehindQueue<PlacedGenerator> getQueue() {
+        return queue;
+    }
+
+    @Override
+    public boolean exists() {
+        return database.executeQueryWithCallback("select_any_generator", ResultSet::next);
+    }
+
+    @Override
+    public int load(@NotNull Consumer<PlacedGenerator> reader, long downtime) {
+        List<String> worlds = new ArrayList<>();
+        if (!database.executeQueryWithCallback("select_worlds", rs -> {
+            while (rs.next()) worlds.add(rs.getString(1));
+            return true;
+        })) {
+            Logger.error("[Data] Не удалось прочитать список миров генераторов");
+            return 0;
+        }
+        if (worlds.isEmpty()) return 0;
+
+        // Каждый мир - своим потоком и своим соединением из пула
+        int threads = Math.min(plugin.getConfigManager().getLoadThreads(), database.getConfig().getMaxPoolSize());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, worlds.size())), runnable -> {
+            Thread thread = new Thread(runnable, "IronFactory-Load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<List<PlacedGenerator>> loaded = new ExecutorCompletionService<>(pool);
+        Map<Future<List<PlacedGenerator>>, String> sources = new HashMap<>();
+        for (String world : worlds) {
+            sources.put(loaded.submit(() -> loadWorld(world, downtime)), world);
+        }
+
+        int count = 0;
+        try {
+            for (int i = 0; i < worlds.size(); i++) {
+                Future<List<PlacedGenerator>> done = loaded.take();
+                try {
+                    for (PlacedGenerator generator : done.get()) {
+                        reader.accept(generator);
+                        count++;
+                    }
+                } catch (ExecutionException e) {
+                    Logger.error("[Data] Ошибка загрузки генераторов мира " + sources.get(done), asException(e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return count;
+    }
+
+    private List<PlacedGenerator> loadWorld(String world, long downtime) throws SQLException {
+        List<PlacedGenerator> generators = new ArrayList<>();
+        readWorld(database, world, plugin.getConfigManager().getDatabasePageSize(), rs -> {
+            PlacedGenerator generator = read(world, rs, downtime);
+            if (generator != null) generators.add(generator);
+        });
+        return generators;
+    }
+
+    /**
+     * One row of a world read by {@link #readWorld}.
+     */
+    interface RowReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Reads every row of a world a page at a time by primary key (keyset paging:
+     * each page starts after the last id of the previous one, so no OFFSET scan).
+     *
+     * @return number of pages queried
+     */
+    static int readWorld(DatabaseManager database, String world, int pageSize, RowReader reader) throws SQLException {
+        long[] lastId = {0};
+        int[] rows = new int[1];
+        int pages = 0;
+        do {
+            rows[0] = 0;
+            boolean ok = database.executeQueryWithCallback("select_by_world", rs -> {
+                while (rs.next()) {
+                    lastId[0] = rs.getLong("id");
+                    rows[0]++;
+                    reader.read(rs);
+                }
+                return true;
+            }, world, lastId[0], pageSize);
+            if (!ok) throw new SQLException("page after id " + lastId[0] + " failed");
+            pages++;
+        } while (rows[0] == pageSize);
+        return pages;
+    }
+
+    @Nullable
+    private PlacedGenerator read(String world, ResultSet rs, long downtime) throws SQLException {
+        String key = rs.getString("location_key");
+        try {
+            PlacedGenerator generator = new PlacedGenerator(rs.getString("type_id"),
+                    UUID.fromString(rs.getString("owner_uuid")), world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
+            generator.setPlacedTime(rs.getLong("created_time"));
+            generator.setCurrentTick(rs.getInt("current_tick"));
+            generator.setTotalGenerated(rs.getLong("total_generated"));
+            generator.setBroken(rs.getBoolean("is_broken"));
+            generator.setUpgradeLevel(rs.getInt("upgrade_level"));
+            generator.setMineHealth(rs.getInt("mine_health"));
+            long lastEvaluated = rs.getLong("last_ticked");
+            if (lastEvaluated > 0) generator.setLastEvaluated(lastEvaluated + downtime);
+            readStorage(generator, rs.getString("storage"));
+            generator.clearDirty();
+            return generator;
+        } catch (IllegalArgumentException e) {
+            Logger.warn("Ошибка загрузки: " + key);
+            return null;
+        }
+    }
+
+    // Хранилище в базе - строкой "МАТЕРИАЛ:количество;...", в памяти - по индексу дропа
+    private void readStorage(PlacedGenerator generator, @Nullable String storage) {
+        if (storage == null || storage.isEmpty()) return;
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        if (type == null) return;
+        for (String entry : storage.split(";")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) continue;
+            GeneratorManager.addStored(generator, type, entry.substring(0, colon), Long.parseLong(entry.substring(colon + 1)));
+        }
+    }
+
+    @Nullable
+    private String writeStorage(PlacedGenerator generator) {
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        StringBuilder storage = null;
+        for (int i = 0; i < GeneratorManager.storedSlots(generator, type); i++) {
+            long stored = generator.getStored(i);
+            if (stored == 0) continue;
+            if (storage == null) {
+                storage = new StringBuilder();
+            } else {
+                storage.append(';');
+            }
+            storage.append(type.getDrops().get(i).getMaterial().name()).append(':').append(stored);
+        }
+        return storage == null ? null : storage.toString();
+    }
+
+    @Override
+    public void changed(@NotNull PlacedGenerator generator, @NotNull GeneratorJournal.Op op) {
+        if (op == GeneratorJournal.Op.BREAK) return;  // удаление ставит markRemoved
+        // База не успевает - прогресс ждёт автосохранения (генератор остаётся dirty), остальное идёт в очередь
+        if (op == GeneratorJournal.Op.PROGRESS && queue.isLagging(lagNanos())) return;
+        queue.update(generator.getLocationKey(), generator);
+    }
+
+    private long lagNanos() {
+        return plugin.getConfigManager().getWriteBehindIntervalTicks() * 50_000_000L;
+    }
+
+    // Сброс очереди по размеру или времени; пока предыдущий сброс не записан, новый не начинается
+    private void tick() {
+        int interval = plugin.getConfigManager().getWriteBehindIntervalTicks();
+        boolean due = queue.tick(plugin.getConfigManager().getWriteBehindFlushSize(), interval);
+        // Не записанное прошлым сбросом повторяется по интервалу, даже если очередь пуста
+        if (!due && !(pendingCount > 0 && queue.isIntervalElapsed(interval))) return;
+        if (queue.isFlushing()) return;
+
+        WriteBehindQueue.Batch<PlacedGenerator> batch = queue.drain(plugin.getConfigManager().getWriteBehindMaxBatch());
+        List<Row> rows = new ArrayList<>(batch.updates.size());
+        for (PlacedGenerator generator : batch.updates) {
+            rows.add(snapshot(generator));
+            dirty.remove(generator.getLocationKey());
+        }
+        List<String> deletes = batch.deletes;
+        queue.flushStarted();
+        executor.execute(() -> {
+            boolean written = false;
+            try {
+                written = write(rows, deletes, null);
+            } finally {
+                // Иначе после исключения сброс считался бы идущим вечно
+                queue.flushFinished(written);
+            }
+        });
+    }
+
+    private Row snapshot(PlacedGenerator generator) {
+        Row row = new Row(generator, plugin.getGeneratorManager().getProgressTicks(generator), writeStorage(generator));
+        generator.clearDirty();
+        return row;
+    }
+
+    @Override
+    public int save(boolean all, @Nullable Runnable onDurable) {
+        // Сохранение забирает и всю очередь: после него в базе всё, что было до него
+        WriteBehindQueue.Batch<PlacedGenerator> batch = queue.drain(Integer.MAX_VALUE);
+        List<Row> rows = new ArrayList<>();
+        for (PlacedGenerator generator : batch.updates) {
+            rows.add(snapshot(generator));
+        }
+        if (all) {
+            plugin.getGeneratorManager().forEachGenerator(generator -> rows.add(snapshot(generator)));
+        } else {
+            for (PlacedGenerator generator : dirty.values()) {
+                if (generator.isDirty()) rows.add(snapshot(generator));
+            }
+        }
+        dirty.clear();
+        List<String> deletes = batch.deletes;
+
+        executor.execute(() -> {
+            if (write(rows, deletes, onDurable)) queue.writeSucceeded();
+        });
+        return rows.size() + deletes.size();
+    }
+
+    private boolean write(List<Row> rows, List<String> deletes, @Nullable Runnable onDurable) {
+        boolean written = write(database, pendingRows, pendingDeletes, rows, deletes);
+        pendingCount = pendingRows.size() + pendingDeletes.size();
+        if (!written) {
+            Logger.error("[Data] Генераторы не записаны в базу, повтор при следующем сохранении (строк: "
+                    + pendingRows.size() + ", удалений: " + pendingDeletes.size() + ")");
+            return false;
+        }
+        if (onDurable != null) onDurable.run();
+        return true;
+    }
+
+    /**
+     * Adds a batch to what is pending and writes all of it in one transaction:
+     * deletes first, then upserts by location key. Pending is cleared only when
+     * the transaction commits, so a failed write is retried with the next one.
+     *
+     * @return true if everything pending is now in the database
+     */
+    static boolean write(DatabaseManager database, Map<String, Row> pendingRows, Set<String> pendingDeletes,
+                         List<Row> rows, List<String> deletes) {
+        // Удаления этого сохранения идут раньше его строк: сломали и поставили заново - строка остаётся
+        for (String key : deletes) {
+            pendingRows.remove(key);
+            pendingDeletes.add(key);
+        }
+        for (Row row : rows) {
+            pendingRows.put(row.locationKey, row);
+        }
+        if (pendingRows.isEmpty() && pendingDeletes.isEmpty()) return true;
+
+        boolean written = database.executeTransaction(conn -> {
+            deleteAll(database, conn, pendingDeletes);
+            upsertAll(database, conn, pendingRows.values());
+        });
+        if (written) {
+            pendingRows.clear();
+            pendingDeletes.clear();
+        }
+        return written;
+    }
+
+    private static void deleteAll(DatabaseManager database, Connection conn, Set<String> pendingDeletes)
+            throws SQLException {
+        if (pendingDeletes.isEmpty()) return;
+        try (PreparedStatement stmt = conn.prepareStatement(database.getQuery("delete_generator"))) {
+            int batched = 0;
+            for (String key : pendingDeletes) {
+                stmt.setString(1, key);
+                stmt.addBatch();
+                if (++batched % BATCH_SIZE == 0) stmt.executeBatch();
+            }
+            if (batched % BATCH_SIZE != 0) stmt.executeBatch();
+        }
+    }
+
+    private static void upsertAll(DatabaseManager database, Connection conn, Collection<Row> pendingRows)
+            throws SQLException {
+        if (pendingRows.isEmpty()) return;
+        try (PreparedStatement stmt = conn.prepareStatement(database.getQuery("upsert_generator"))) {
+            int batched = 0;
+            for (Row row : pendingRows) {
+                stmt.setString(1, row.locationKey);
+                stmt.setString(2, row.world);
+                stmt.setInt(3, row.x);
+                stmt.setInt(4, row.y);
+                stmt.setInt(5, row.z);
+                stmt.setString(6, row.owner);
+                stmt.setString(7, row.typeId);
+                stmt.setLong(8, row.createdTime);
+                stmt.setLong(9, row.lastEvaluated);
+                stmt.setLong(10, row.totalGenerated);
+                stmt.setBoolean(11, row.broken);
+                stmt.setInt(12, row.currentTick);
+                stmt.setInt(13, row.upgradeLevel);
+                stmt.setInt(14, row.mineHealth);
+                stmt.setString(15, row.storage);
+                stmt.addBatch();
+                if (++batched % BATCH_SIZE == 0) stmt.executeBatch();
+            }
+            if (batched % BATCH_SIZE != 0) stmt.executeBatch();
+        }
+    }
+
+    @Override
+    public void markDirty(@NotNull PlacedGenerator generator) {
+        dirty.put(generator.getLocationKey(), generator);
+    }
+
+    @Override
+    public void markRemoved(@NotNull PlacedGenerator generator) {
+        dirty.remove(generator.getLocationKey());
+        queue.delete(generator.getLocationKey());
+    }
+
+    @Override
+    public boolean flush(long timeoutMillis) {
+        try {
+            // Поток один: пустая задача выполнится после текущей очереди
+            executor.submit(() -> { }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean close(long timeoutMillis) {
+        flushTask.cancel();
+        executor.shutdown();
+        boolean finished;
+        try {
+            finished = executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        if (finished && (!pendingRows.isEmpty() || !pendingDeletes.isEmpty())) {
+            Logger.error("[Data] При выключении в базу не записано генераторов: " + pendingRows.size()
+                    + ", удалений: " + pendingDeletes.size());
+        }
+        database.close();
+        return finished;
+    }
+
+    private static Exception asException(Throwable cause) {
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+}
@@ -0,0 +1,148 @@
+package com.factory.generators.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rows waiting to be written to the database, one entry per key: any number
+ * of updates to the same row between two flushes are written once, with the
+ * latest value. A delete cancels earlier updates of its key; an update after
+ * a delete is written after it.
+ * Also keeps the flush statistics shown by {@code /dbstatus}.
+ *
+ * <p>The queue itself is main-thread only; the statistics are updated from the database thread.
+ */
+public class WriteBehindQueue<T> {
+
+    private final Map<String, T> updates = new LinkedHashMap<>();
+    private final Set<String> deletes = new LinkedHashSet<>();
+    private int ticksSinceFlush;
+
+    // Статистика сбросов (поток базы)
+    private volatile boolean flushing;
+    private volatile long flushStartedNanos;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile double averageFlushNanos;
+    private volatile long flushCount;
+    private volatile long failedFlushCount;
+    private volatile boolean lastFlushFailed;
+
+    /**
+     * Keys and values taken out of the queue for one flush.
+     */
+    public static final class Batch<T> {
+        public final List<T> updates;
+        public final List<String> deletes;
+
+        Batch(List<T> updates, List<String> deletes) {
+            this.updates = updates;
+            this.deletes = deletes;
+        }
+
+        public boolean isEmpty() {
+            return updates.isEmpty() && deletes.isEmpty();
+        }
+    }
+
+    public void update(@NotNull String key, @NotNull T value) {
+        updates.put(key, value);
+    }
+
+    public void delete(@NotNull String key) {
+        updates.remove(key);
+        deletes.add(key);
+    }
+
+    /**
+     * Number of updates and deletes waiting for a flush.
+     */
+    public int size() {
+        return updates.size() + deletes.size();
+    }
+
+    /**
+     * Counts a tick; true once the queue holds {@code flushSize} keys or has
+     * not been flushed for {@code intervalTicks} ticks.
+     */
+    public boolean tick(int flushSize, int intervalTicks) {
+        ticksSinceFlush++;
+        if (size() == 0) return false;
+        return size() >= flushSize || ticksSinceFlush >= intervalTicks;
+    }
+
+    /**
+     * Whether {@code intervalTicks} ticks have passed since the last drain, queued keys or not.
+     */
+    public boolean isIntervalElapsed(int intervalTicks) {
+        return ticksSinceFlush >= intervalTicks;
+    }
+
+    /**
+     * Takes all deletes and at most {@code maxUpdates} updates, oldest first;
+     * the rest stay queued for the next flush.
+     */
+    @NotNull
+    public Batch<T> drain(int maxUpdates) {
+        List<String> drainedDeletes = new ArrayList<>(deletes);
+        deletes.clear();
+
+        List<T> drainedUpdates = new ArrayList<>(Math.min(updates.size(), maxUpdates));
+        Iterator<T> values = updates.values().iterator();
+        while (values.hasNext() && drainedUpdates.size() < maxUpdates) {
+            drainedUpdates.add(values.next());
+            values.remove();
+        }
+        ticksSinceFlush = 0;
+        return new Batch<>(drainedUpdates, drainedDeletes);
+    }
+
+    /**
+     * Whether the database is behind: a flush has been running longer than
+     * {@code lagNanos}, or the last one failed.
+     */
+    public boolean isLagging(long lagNanos) {
+        return lastFlushFailed || (flushing && System.nanoTime() - flushStartedNanos > lagNanos);
+    }
+
+    public boolean isFlushing() {
+        return flushing;
+    }
+
+    public void flushStarted() {
+        flushStartedNanos = System.nanoTime();
+        flushing = true;
+    }
+
+    public void flushFinished(boolean success) {
+        long took = System.nanoTime() - flushStartedNanos;
+        lastFlushNanos = took;
+        if (took > maxFlushNanos) maxFlushNanos = took;
+        // Скользящее среднее: последние ~20 сбросов
+        averageFlushNanos = flushCount == 0 ? took : averageFlushNanos * 0.95 + took * 0.05;
+        flushCount++;
+        if (!success) failedFlushCount++;
+        lastFlushFailed = !success;
+        flushing = false;
+    }
+
+    /**
+     * A save outside the queue reached the database: it is no longer behind.
+     */
+    public void writeSucceeded() {
+        lastFlushFailed = false;
+    }
+
+    public double getLastFlushMillis() { return lastFlushNanos / 1_000_000.0; }
+    public double getMaxFlushMillis() { return maxFlushNanos / 1_000_000.0; }
+    public double getAverageFlushMillis() { return averageFlushNanos / 1_000_000.0; }
+    public long getFlushCount() { return flushCount; }
+    public long getFailedFlushCount() { return failedFlushCount; }
+}
@@ -1,10 +1,12 @@
 package com.factory.generators.gui;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.models.GeneratorDrop;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.PlacedGenerator;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
@@ -43,7 +45,7 @@ public class GeneratorGUI implements Listener {
         infoLore.add("");
         infoLore.add("&7Владелец: &f" + Bukkit.getOfflinePlayer(generator.getOwnerUUID()).getName());
         infoLore.add("&7Произведено: &a" + generator.getTotalGenerated());
-        infoLore.add("&7След: &a" + generator.formatTime(generator.getRemainingTicks(type.getDelay())));
+        infoLore.add("&7След: &a" + generator.formatTime(plugin.getGeneratorManager().getRemainingTicks(generator)));
 
         ItemStack info = createItem(type.getBlockMaterial(), "&eИнформация", infoLore);
         inventory.setItem(13, info);
@@ -57,6 +59,10 @@ public class GeneratorGUI implements Listener {
             inventory.setItem(11, createItem(Material.BARRIER, "&cМакс. уровень", new ArrayList<>()));
         }
 
+        if (plugin.getConfigManager().isStorageEnabled() || generator.getStoredTotal() > 0) {
+            inventory.setItem(15, createStorageItem());
+        }
+
         inventory.setItem(22, createItem(Material.BARRIER, "&cЗакрыть", new ArrayList<>()));
 
         Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -74,11 +80,34 @@ public class GeneratorGUI implements Listener {
         if (slot == 11 && type.isUpgradeEnabled()) {
             clicker.closeInventory();
             plugin.getGeneratorManager().upgradeGenerator(clicker, generator.getLocation());
+        } else if (slot == 15 && generator.getStoredTotal() > 0) {
+            long collected = plugin.getGeneratorManager().collectStorage(clicker, generator);
+            if (collected > 0) {
+                clicker.sendMessage(color("&a[Завод] Забрано предметов: " + collected));
+                clicker.playSound(clicker.getLocation(), Sound.ENTITY_ITEM_PICKUP, 1f, 1f);
+            } else {
+                clicker.sendMessage(color("&c[Завод] Инвентарь полон!"));
+            }
+            inventory.setItem(15, createStorageItem());
         } else if (slot == 22) {
             clicker.closeInventory();
         }
     }
 
+    private ItemStack createStorageItem() {
+        List<String> lore = new ArrayList<>();
+        lore.add("");
+        List<GeneratorDrop> drops = type.getDrops();
+        for (int i = 0; i < generator.getStorageSlots() && i < drops.size(); i++) {
+            long stored = generator.getStored(i);
+            if (stored > 0) lore.add("&7" + drops.get(i).getMaterial().name() + ": &f" + stored);
+        }
+        lore.add("&7Всего: &f" + generator.getStoredTotal() + "/" + plugin.getConfigManager().getStorageCapacity());
+        lore.add("");
+        lore.add("&eНажмите, чтобы забрать");
+        return createItem(Material.CHEST, "&6Хранилище", lore);
+    }
+
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
         if (!event.getInventory().equals(inventory)) return;
@@ -1,6 +1,7 @@
 package com.factory.generators.gui;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.managers.GeneratorJournal;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.PlacedGenerator;
 import org.bukkit.Bukkit;
@@ -187,9 +188,11 @@ public class MineGUI implements Listener {
             generator.setMineHealth(100); // Устанавливаем полное здоровье
             generator.setBroken(false);
             if (!generator.hasOwner()) {
-                generator.setOwnerUUID(clicker.getUniqueId());
+                plugin.getGeneratorManager().setOwner(generator, clicker.getUniqueId());
                 clicker.sendMessage(color("&6[Рудник] &fВы стали владельцем этого рудника!"));
             }
+            plugin.getGeneratorManager().reschedule(generator);
+            plugin.getDataManager().journal(generator, GeneratorJournal.Op.REPAIR);
 
             clicker.sendMessage(color("&a[Рудник] Рудник активирован! Начинает производить ресурсы!"));
             clicker.playSound(clicker.getLocation(), Sound.BLOCK_ANVIL_USE, 1f, 1f);
@@ -1,6 +1,7 @@
 package com.factory.generators.gui;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.managers.GeneratorJournal;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.PlacedGenerator;
 import org.bukkit.Bukkit;
@@ -102,6 +103,8 @@ public class RepairGUI implements Listener {
 
             removeItems(clicker, type.getRepairMaterial(), type.getRepairAmount());
             generator.setBroken(false);
+            plugin.getGeneratorManager().reschedule(generator);
+            plugin.getDataManager().journal(generator, GeneratorJournal.Op.REPAIR);
 
             clicker.closeInventory();
             clicker.sendMessage(color("&a[Завод] Генератор отремонтирован!"));
@@ -173,4 +176,4 @@ public class RepairGUI implements Listener {
     private String color(String text) {
         return text.replace("&", "§");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
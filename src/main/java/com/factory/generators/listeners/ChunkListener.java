@@ -0,0 +1,43 @@
+package com.factory.generators.listeners;
+
+import com.factory.generators.IronFactory;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+
+/**
+ * Activates and deactivates generator chunk buckets as chunks load and unload,
+ * restores loaded generators whose chunk comes in, despawns holograms of
+ * unloading chunks and cleans up leftover hologram entities.
+ */
+public class ChunkListener implements Listener {
+
+    private final IronFactory plugin;
+
+    public ChunkListener(IronFactory plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        plugin.getGeneratorManager().onChunkLoad(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+        plugin.getDataManager().onChunkLoad(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        plugin.getHologramManager().reconcile(event.getEntities());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        plugin.getGeneratorManager().onChunkUnload(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+        plugin.getHologramManager().onChunkUnload(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+}
@@ -4,7 +4,6 @@ import com.factory.generators.IronFactory;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
-import org.bukkit.event.player.PlayerQuitEvent;
 
 public class PlayerListener implements Listener {
 
@@ -17,10 +16,4 @@ public class PlayerListener implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
     }
-
-    @EventHandler
-    public void onPlayerQuit(PlayerQuitEvent event) {
-        plugin.getDataManager().saveGenerators();
-        plugin.getDataManager().saveMultiBlockStructures();
-    }
 }
\ No newline at end of file
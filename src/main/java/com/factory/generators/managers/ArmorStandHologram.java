@@ -0,0 +1,84 @@
+package com.factory.generators.managers;
+
+import org.bukkit.Location;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Legacy hologram: a column of invisible marker ArmorStands, one per line.
+ */
+public class ArmorStandHologram implements Hologram {
+
+    private final List<ArmorStand> stands;
+    private final String[] shown;
+
+    private ArmorStandHologram(List<ArmorStand> stands, List<String> lines) {
+        this.stands = stands;
+        this.shown = lines.subList(0, stands.size()).toArray(new String[0]);
+    }
+
+    static Hologram spawn(Location top, List<String> lines, String tag) {
+        if (top.getWorld() == null) return null;
+
+        List<ArmorStand> stands = new ArrayList<>();
+        Location holoLoc = top.clone();
+        for (String line : lines) {
+            try {
+                ArmorStand stand = (ArmorStand) holoLoc.getWorld().spawnEntity(holoLoc, EntityType.ARMOR_STAND);
+                stand.setCustomName(line);
+                stand.setCustomNameVisible(true);
+                stand.setVisible(false);
+                stand.setGravity(false);
+                stand.setMarker(true);
+                stand.setSmall(true);
+                stand.setInvulnerable(true);
+                HologramBackend.tag(stand, tag);
+                stands.add(stand);
+                holoLoc.subtract(0, HologramBackend.LINE_HEIGHT, 0);
+            } catch (Exception e) { }
+        }
+        return stands.isEmpty() ? null : new ArmorStandHologram(stands, lines);
+    }
+
+    @Override
+    public int setLines(List<String> lines) {
+        int changed = 0;
+        for (int i = 0; i < stands.size() && i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.equals(shown[i])) continue;
+
+            ArmorStand stand = stands.get(i);
+            if (stand != null && !stand.isDead()) stand.setCustomName(line);
+            shown[i] = line;
+            changed++;
+        }
+        return changed;
+    }
+
+    @Override
+    public void remove() {
+        for (ArmorStand stand : stands) {
+            if (stand != null && !stand.isDead()) stand.remove();
+        }
+    }
+
+    @Override
+    public boolean contains(Entity entity) {
+        for (ArmorStand stand : stands) {
+            if (stand != null && stand.getUniqueId().equals(entity.getUniqueId())) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isValid() {
+        for (ArmorStand stand : stands) {
+            if (stand != null && !stand.isDead()) return true;
+        }
+        return false;
+    }
+}
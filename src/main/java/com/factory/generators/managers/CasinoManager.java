@@ -161,22 +161,8 @@ public class CasinoManager {
      */
     @NotNull
     public ItemStack createOilItem(int amount) {
-        ItemStack oil = new ItemStack(Material.INK_SAC, Math.min(amount, 64));
-        ItemMeta meta = oil.getItemMeta();
-        if (meta != null) {
-            // Тот же стиль что и в MultiBlockManager для единообразия
-            meta.setDisplayName(colorize("&8⛽ &fНефть"));
-
-            // colorize() — метод в CasinoManager, аналог color() в других классах
-            meta.setLore(new java.util.ArrayList<>(java.util.Arrays.asList(
-                    colorize(""),
-                    colorize("&7Сырая нефть"),
-                    colorize("&8Из буровой вышки")
-            )));
-
-            oil.setItemMeta(meta);
-        }
-        return oil;
+        // Тот же предмет, что выдаёт буровая (прототип кэшируется там)
+        return MultiBlockManager.createOilItem(Math.min(amount, 64));
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.factory.generators.managers;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.database.DatabaseConfig;
 import com.factory.generators.models.GeneratorDrop;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.GeneratorUpgrade;
@@ -25,6 +26,32 @@ public class ConfigManager {
     private boolean onlyWorkInLoadedChunks;
     private boolean dropOnBreak;
     private boolean onlyOwnerCanBreak;
+    private long tickBudgetNanos;
+    private boolean offlineCatchUp;
+    private long offlineCatchUpMaxMillis;
+    private boolean storageEnabled;
+    private long storageCapacity;
+    private long saveShutdownTimeoutMillis;
+    private boolean journalEnabled;
+    private int journalCommitIntervalTicks;
+    private long journalCompactSizeBytes;
+    private int loadThreads;
+    private int restorePerTick;
+    private String databaseType;
+    private DatabaseConfig databaseConfig;
+    private int databasePageSize;
+    private int writeBehindIntervalTicks;
+    private int writeBehindFlushSize;
+    private int writeBehindMaxBatch;
+    private HologramBackend hologramBackend;
+    private int hologramViewDistance;
+    private int hologramNearChunks;
+    private int hologramMidChunks;
+    private int hologramMidInterval;
+    private double effectsViewDistance;
+    private int effectsMaxPerChunk;
+    private int effectsMaxPerPlayer;
+    private int effectsMaxParticleCount;
 
     public ConfigManager(IronFactory plugin) {
         this.plugin = plugin;
@@ -46,6 +73,51 @@ public class ConfigManager {
         onlyWorkInLoadedChunks = config.getBoolean("settings.only-work-in-loaded-chunks", true);
         dropOnBreak = config.getBoolean("settings.drop-on-break", true);
         onlyOwnerCanBreak = config.getBoolean("settings.only-owner-can-break", true);
+        tickBudgetNanos = (long) (Math.max(0.05, config.getDouble("settings.tick-budget-ms", 2.0)) * 1_000_000L);
+        offlineCatchUp = config.getBoolean("settings.offline-catch-up.enabled", false);
+        if (!onlyWorkInLoadedChunks && !offlineCatchUp) {
+            plugin.getLogger().warning("settings.only-work-in-loaded-chunks: false без settings.offline-catch-up.enabled: true"
+                    + " - выработка в выгруженных чанках не досчитывается");
+        }
+        offlineCatchUpMaxMillis = (long) (Math.max(0, config.getDouble("settings.offline-catch-up.max-hours", 12)) * 3_600_000L);
+        storageEnabled = config.getBoolean("settings.storage.enabled", false);
+        storageCapacity = Math.max(1, config.getLong("settings.storage.capacity", 2304));
+        saveShutdownTimeoutMillis = (long) (Math.max(1, config.getDouble("settings.save.shutdown-timeout-seconds", 30)) * 1000L);
+        journalEnabled = config.getBoolean("settings.save.journal.enabled", true);
+        journalCommitIntervalTicks = Math.max(1, config.getInt("settings.save.journal.commit-interval-ticks", 20));
+        journalCompactSizeBytes = Math.max(64, config.getLong("settings.save.journal.compact-size-kb", 8192)) * 1024L;
+        int threads = config.getInt("settings.load.threads", 0);
+        loadThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        restorePerTick = Math.max(1, config.getInt("settings.load.restore-per-tick", 500));
+        databaseType = config.getString("settings.database.type", "file").toLowerCase(Locale.ROOT);
+        if (!databaseType.equals("file") && !databaseType.equals("mysql") && !databaseType.equals("sqlite")) {
+            plugin.getLogger().warning("Неизвестный settings.database.type: " + databaseType + " - используется file");
+            databaseType = "file";
+        }
+        databaseConfig = new DatabaseConfig.Builder()
+                .type(databaseType.equals("sqlite") ? DatabaseConfig.DatabaseType.SQLITE : DatabaseConfig.DatabaseType.MYSQL)
+                .host(config.getString("settings.database.host", "localhost"))
+                .port(config.getInt("settings.database.port", 3306))
+                .database(config.getString("settings.database.name", "ironfactory"))
+                .username(config.getString("settings.database.username", "root"))
+                .password(config.getString("settings.database.password", ""))
+                .maxPoolSize(config.getInt("settings.database.pool-size", 10))
+                .filePath(new File(plugin.getDataFolder(), config.getString("settings.database.sqlite.file", "data/generators.db")).getPath())
+                .cacheSizeMb(config.getInt("settings.database.sqlite.cache-size-mb", 16))
+                .build();
+        databasePageSize = Math.max(100, config.getInt("settings.database.page-size", 1000));
+        writeBehindIntervalTicks = Math.max(1, config.getInt("settings.database.write-behind.flush-interval-ticks", 40));
+        writeBehindFlushSize = Math.max(1, config.getInt("settings.database.write-behind.flush-size", 500));
+        writeBehindMaxBatch = Math.max(writeBehindFlushSize, config.getInt("settings.database.write-behind.max-batch", 5000));
+        hologramBackend = HologramBackend.fromName(config.getString("hologram.backend"), HologramBackend.TEXT_DISPLAY);
+        hologramViewDistance = Math.max(1, config.getInt("hologram.view-distance", 3));
+        hologramNearChunks = Math.max(0, config.getInt("hologram.refresh.near-chunks", 1));
+        hologramMidChunks = Math.max(hologramNearChunks, config.getInt("hologram.refresh.mid-chunks", 2));
+        hologramMidInterval = Math.max(1, config.getInt("hologram.refresh.mid-interval", 5));
+        effectsViewDistance = Math.max(1, config.getDouble("effects.view-distance", 32));
+        effectsMaxPerChunk = Math.max(1, config.getInt("effects.max-per-chunk", 6));
+        effectsMaxPerPlayer = Math.max(1, config.getInt("effects.max-per-player", 24));
+        effectsMaxParticleCount = Math.max(1, config.getInt("effects.max-particle-count", 64));
     }
 
     private void loadGenerators() {
@@ -408,6 +480,32 @@ public class ConfigManager {
     public boolean isOnlyWorkInLoadedChunks() { return onlyWorkInLoadedChunks; }
     public boolean isDropOnBreak() { return dropOnBreak; }
     public boolean isOnlyOwnerCanBreak() { return onlyOwnerCanBreak; }
+    public long getTickBudgetNanos() { return tickBudgetNanos; }
+    public boolean isOfflineCatchUp() { return offlineCatchUp; }
+    public long getOfflineCatchUpMaxMillis() { return offlineCatchUpMaxMillis; }
+    public boolean isStorageEnabled() { return storageEnabled; }
+    public long getStorageCapacity() { return storageCapacity; }
+    public long getSaveShutdownTimeoutMillis() { return saveShutdownTimeoutMillis; }
+    public boolean isJournalEnabled() { return journalEnabled; }
+    public int getJournalCommitIntervalTicks() { return journalCommitIntervalTicks; }
+    public long getJournalCompactSizeBytes() { return journalCompactSizeBytes; }
+    public int getLoadThreads() { return loadThreads; }
+    public int getRestorePerTick() { return restorePerTick; }
+    public String getDatabaseType() { return databaseType; }
+    public DatabaseConfig getDatabaseConfig() { return databaseConfig; }
+    public int getDatabasePageSize() { return databasePageSize; }
+    public int getWriteBehindIntervalTicks() { return writeBehindIntervalTicks; }
+    public int getWriteBehindFlushSize() { return writeBehindFlushSize; }
+    public int getWriteBehindMaxBatch() { return writeBehindMaxBatch; }
+    public HologramBackend getHologramBackend() { return hologramBackend; }
+    public int getHologramViewDistance() { return hologramViewDistance; }
+    public int getHologramNearChunks() { return hologramNearChunks; }
+    public int getHologramMidChunks() { return hologramMidChunks; }
+    public int getHologramMidInterval() { return hologramMidInterval; }
+    public double getEffectsViewDistance() { return effectsViewDistance; }
+    public int getEffectsMaxPerChunk() { return effectsMaxPerChunk; }
+    public int getEffectsMaxPerPlayer() { return effectsMaxPerPlayer; }
+    public int getEffectsMaxParticleCount() { return effectsMaxParticleCount; }
 
     // Generic config getters for casino and other features
     public String getString(String path, String defaultValue) {
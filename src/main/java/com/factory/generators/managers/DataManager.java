@@ -1,6 +1,8 @@
 package com.factory.generators.managers;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.database.DatabaseManager;
+import com.factory.generators.database.SqlGeneratorStorage;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.MultiBlockStructure;
 import com.factory.generators.models.PlacedGenerator;
@@ -9,131 +11,508 @@ import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.File;
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class DataManager {
 
     private final IronFactory plugin;
-    private File dataFile;
-    private File multiBlockFile;
+    private final File dataFile;  // старый формат: один файл на все генераторы
+    private final File multiBlockFile;
+    private final File stateFile;
+    private final File generatorDir;
+    private final RegionStore<PlacedGenerator> generatorStore;
+    private final RegionStore<MultiBlockStructure> structureStore;
+    private final GeneratorCodec generatorCodec = new GeneratorCodec();
+    private final GeneratorRecords generatorRecords = new GeneratorRecords();
+    private final SnapshotWriter writer;
+    private final GeneratorJournal journal;
+    private final GeneratorRestorer restorer;
+    private final GeneratorStorage regionStorage = new RegionGeneratorStorage();
+    private GeneratorStorage storage;  // выбирается по конфигу при первой загрузке
 
     public DataManager(IronFactory plugin) {
         this.plugin = plugin;
         this.dataFile = new File(plugin.getDataFolder(), "data/generators.yml");
         this.multiBlockFile = new File(plugin.getDataFolder(), "data/multiblock.yml");
+        this.stateFile = new File(plugin.getDataFolder(), "data/state.yml");
+        this.writer = new SnapshotWriter(plugin.getLogger());
+        this.generatorDir = new File(plugin.getDataFolder(), "data/generators");
+        this.generatorStore = new RegionStore<>(generatorDir,
+                generatorCodec, writer, plugin.getLogger());
+        this.structureStore = new RegionStore<>(new File(plugin.getDataFolder(), "data/structures"),
+                new StructureCodec(), writer, plugin.getLogger());
+        this.journal = new GeneratorJournal(new File(plugin.getDataFolder(), "data/journal"),
+                generatorCodec, plugin.getLogger());
+        this.restorer = new GeneratorRestorer(plugin);
     }
 
-    public void loadGenerators() {
-        if (!dataFile.exists()) {
-            dataFile.getParentFile().mkdirs();
-            try { dataFile.createNewFile(); } catch (IOException e) { }
-            return;
+    private final class GeneratorCodec implements RegionStore.Codec<PlacedGenerator> {
+        // x, y, z, тип, владелец, тик, всего, last-evaluated, уровень, прочность, флаги, число слотов
+        private static final int BASE_SIZE = 4 * 3 + 4 + 4 + 4 + 8 + 8 + 4 + 4 + 1 + 2;
+        private static final int STORAGE_ENTRY_SIZE = 4 + 8;
+        private static final int FLAG_BROKEN = 1;
+
+        // Простой сервера, прибавляемый к last-evaluated при загрузке
+        private long downtime;
+
+        @Override public String getWorldName(PlacedGenerator g) { return g.getWorldName(); }
+        @Override public int getBlockX(PlacedGenerator g) { return g.getX(); }
+        @Override public int getBlockZ(PlacedGenerator g) { return g.getZ(); }
+        @Override public boolean isDirty(PlacedGenerator g) { return g.isDirty(); }
+        @Override public void clearDirty(PlacedGenerator g) { g.clearDirty(); }
+
+        @Override
+        public int recordSize(PlacedGenerator g) {
+            GeneratorType type = plugin.getConfigManager().getGeneratorType(g.getTypeId());
+            int entries = 0;
+            for (int i = 0; i < GeneratorManager.storedSlots(g, type); i++) {
+                if (g.getStored(i) != 0) entries++;
+            }
+            return BASE_SIZE + entries * STORAGE_ENTRY_SIZE;
         }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
-        ConfigurationSection section = config.getConfigurationSection("generators");
-        if (section == null) return;
+        @Override
+        public void write(PlacedGenerator g, ByteBuffer out, RegionStore.StringTable strings) {
+            out.putInt(g.getX()).putInt(g.getY()).putInt(g.getZ());
+            out.putInt(strings.indexOf(g.getTypeId()));
+            out.putInt(g.hasOwner() ? strings.indexOf(g.getOwnerUUID().toString()) : -1);
+            out.putInt(plugin.getGeneratorManager().getProgressTicks(g));
+            out.putLong(g.getTotalGenerated());
+            out.putLong(g.getLastEvaluated());
+            out.putInt(g.getUpgradeLevel());
+            out.putInt(g.getMineHealth());
+            out.put((byte) (g.isBroken() ? FLAG_BROKEN : 0));
+
+            // Хранилище в файле - по материалам, в памяти - по индексу дропа
+            GeneratorType type = plugin.getConfigManager().getGeneratorType(g.getTypeId());
+            int countAt = out.position();
+            short entries = 0;
+            out.putShort(entries);
+            for (int i = 0; i < GeneratorManager.storedSlots(g, type); i++) {
+                long stored = g.getStored(i);
+                if (stored == 0) continue;
+                out.putInt(strings.indexOf(type.getDrops().get(i).getMaterial().name())).putLong(stored);
+                entries++;
+            }
+            out.putShort(countAt, entries);
+        }
 
-        Map<String, PlacedGenerator> generators = plugin.getGeneratorManager().getPlacedGenerators();
-        generators.clear();
+        @Override
+        public PlacedGenerator read(String worldName, ByteBuffer in, RegionStore.StringTable strings) {
+            int x = in.getInt();
+            int y = in.getInt();
+            int z = in.getInt();
+            String typeId = strings.get(in.getInt());
+            String owner = strings.get(in.getInt());
+            if (typeId == null) return null;
+
+            PlacedGenerator generator = new PlacedGenerator(typeId,
+                    owner == null ? PlacedGenerator.NO_OWNER : UUID.fromString(owner), worldName, x, y, z);
+            generator.setCurrentTick(in.getInt());
+            generator.setTotalGenerated(in.getLong());
+            long lastEvaluated = in.getLong();
+            if (lastEvaluated > 0) generator.setLastEvaluated(lastEvaluated + downtime);
+            generator.setUpgradeLevel(in.getInt());
+            generator.setMineHealth(in.getInt());
+            generator.setBroken((in.get() & FLAG_BROKEN) != 0);
+
+            GeneratorType type = plugin.getConfigManager().getGeneratorType(typeId);
+            int entries = in.getShort() & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                String material = strings.get(in.getInt());
+                long amount = in.getLong();
+                if (type != null && material != null) GeneratorManager.addStored(generator, type, material, amount);
+            }
+            generator.clearDirty();
+            return generator;
+        }
+    }
 
-        for (String key : section.getKeys(false)) {
-            ConfigurationSection gen = section.getConfigurationSection(key);
-            if (gen == null) continue;
+    /**
+     * Registered generators as the region store sees them: a region is looked
+     * up through the chunk buckets instead of scanning every generator.
+     */
+    private final class GeneratorRecords implements RegionStore.Records<PlacedGenerator> {
 
-            try {
-                String typeId = gen.getString("type");
-                String ownerStr = gen.getString("owner");
-                UUID owner = (ownerStr == null || ownerStr.equals("0-0-0-0-0"))
-                        ? PlacedGenerator.NO_OWNER
-                        : UUID.fromString(ownerStr);
-                String[] parts = key.split(";");
-
-                PlacedGenerator generator = new PlacedGenerator(typeId, owner, parts[0],
-                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
-                generator.setCurrentTick(gen.getInt("current-tick", 0));
-                generator.setTotalGenerated(gen.getLong("total-generated", 0));
-                generator.setBroken(gen.getBoolean("broken", false));
-                generator.setUpgradeLevel(gen.getInt("upgrade-level", 0));
-                generator.setMineHealth(gen.getInt("mine-health", 0));
-
-                generators.put(key, generator);
-
-                Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                    if (generator.getLocation() != null) {
-                        GeneratorType type = plugin.getConfigManager().getGeneratorType(typeId);
-                        if (type != null) {
-                            generator.getLocation().getBlock().setType(type.getBlockMaterial());
-                            plugin.getHologramManager().createHologram(generator, type);
-                        }
-                    }
-                }, 20L);
-            } catch (Exception e) {
-                plugin.getLogger().warning("Ошибка загрузки: " + key);
+        @Override
+        public void forEach(Consumer<PlacedGenerator> action) {
+            plugin.getGeneratorManager().forEachGenerator(action);
+        }
+
+        @Override
+        public void forEachInRegion(String worldName, int minBlockX, int minBlockZ, int maxBlockX, int maxBlockZ,
+                                    Consumer<PlacedGenerator> action) {
+            plugin.getGeneratorManager().forEachInChunks(worldName,
+                    minBlockX >> 4, minBlockZ >> 4, maxBlockX >> 4, maxBlockZ >> 4, action);
+        }
+    }
+
+    /**
+     * Generators in binary region files, written by the snapshot writer.
+     */
+    private final class RegionGeneratorStorage implements GeneratorStorage {
+
+        @Override
+        public boolean exists() {
+            return generatorStore.exists();
+        }
+
+        @Override
+        public int load(@NotNull Consumer<PlacedGenerator> reader, long downtime) {
+            generatorCodec.downtime = downtime;
+            return generatorStore.load(reader, plugin.getConfigManager().getLoadThreads());
+        }
+
+        @Override
+        public int save(boolean all, @Nullable Runnable onDurable) {
+            long failures = writer.getFailureCount();
+            int regions = generatorStore.save(generatorRecords, all);
+            if (onDurable != null) {
+                writer.afterQueued(() -> {
+                    if (writer.getFailureCount() == failures) onDurable.run();
+                });
             }
+            return regions;
+        }
+
+        @Override
+        public void markDirty(@NotNull PlacedGenerator generator) {
+            generatorStore.markDirty(generator);
+        }
+
+        @Override
+        public void markRemoved(@NotNull PlacedGenerator generator) {
+            generatorStore.markRemoved(generator);
+        }
+
+        @Override
+        public boolean flush(long timeoutMillis) {
+            return writer.flush(timeoutMillis);
+        }
+
+        @Override
+        public boolean close(long timeoutMillis) {
+            return true;  // поток записи общий, его останавливает shutdown()
         }
-        plugin.getLogger().info("Загружено " + generators.size() + " генераторов");
     }
 
-    public void saveGenerators() {
-        YamlConfiguration config = new YamlConfiguration();
-        Map<String, PlacedGenerator> generators = plugin.getGeneratorManager().getPlacedGenerators();
+    private final class StructureCodec implements RegionStore.Codec<MultiBlockStructure> {
+        // x, y, z, владелец, бур, труба, насос, флаги, тик, всего
+        private static final int RECORD_SIZE = 4 * 3 + 4 + 4 * 3 + 1 + 4 + 8;
+        private static final int FLAG_COMPLETE = 1;
+
+        @Override public String getWorldName(MultiBlockStructure s) { return s.getWorldName(); }
+        @Override public int getBlockX(MultiBlockStructure s) { return s.getBaseX(); }
+        @Override public int getBlockZ(MultiBlockStructure s) { return s.getBaseZ(); }
+        @Override public boolean isDirty(MultiBlockStructure s) { return s.isDirty(); }
+        @Override public void clearDirty(MultiBlockStructure s) { s.clearDirty(); }
+        @Override public int recordSize(MultiBlockStructure s) { return RECORD_SIZE; }
+
+        @Override
+        public void write(MultiBlockStructure s, ByteBuffer out, RegionStore.StringTable strings) {
+            out.putInt(s.getBaseX()).putInt(s.getBaseY()).putInt(s.getBaseZ());
+            out.putInt(strings.indexOf(s.getOwnerUUID().toString()));
+            out.putInt(strings.indexOf(s.getDrillTypeId()));
+            out.putInt(strings.indexOf(s.getPipeTypeId()));
+            out.putInt(strings.indexOf(s.getPumpTypeId()));
+            out.put((byte) (s.isComplete() ? FLAG_COMPLETE : 0));
+            out.putInt(s.getCurrentTick());
+            out.putLong(s.getTotalGenerated());
+        }
 
-        for (Map.Entry<String, PlacedGenerator> entry : generators.entrySet()) {
-            PlacedGenerator g = entry.getValue();
-            String path = "generators." + entry.getKey();
-            config.set(path + ".type", g.getTypeId());
-            config.set(path + ".owner", g.hasOwner() ? g.getOwnerUUID().toString() : "0-0-0-0-0");
-            config.set(path + ".current-tick", g.getCurrentTick());
-            config.set(path + ".total-generated", g.getTotalGenerated());
-            config.set(path + ".broken", g.isBroken());
-            config.set(path + ".upgrade-level", g.getUpgradeLevel());
-            config.set(path + ".mine-health", g.getMineHealth());
+        @Override
+        public MultiBlockStructure read(String worldName, ByteBuffer in, RegionStore.StringTable strings) {
+            int x = in.getInt();
+            int y = in.getInt();
+            int z = in.getInt();
+            String owner = strings.get(in.getInt());
+            if (owner == null) return null;
+
+            MultiBlockStructure structure = new MultiBlockStructure(UUID.fromString(owner), worldName, x, y, z);
+            structure.setDrillTypeId(strings.get(in.getInt()));
+            structure.setPipeTypeId(strings.get(in.getInt()));
+            structure.setPumpTypeId(strings.get(in.getInt()));
+            structure.setComplete((in.get() & FLAG_COMPLETE) != 0);
+            structure.setCurrentTick(in.getInt());
+            structure.setTotalGenerated(in.getLong());
+            structure.clearDirty();
+            return structure;
         }
+    }
 
-        try {
-            dataFile.getParentFile().mkdirs();
-            config.save(dataFile);
-        } catch (IOException e) { }
+    public void loadGenerators() {
+        GeneratorStorage storage = storage();
+        journal.setEnabled(plugin.getConfigManager().isJournalEnabled());
+        long lastCommit = journal.open();
+        // Пустое хранилище заполняется из старых форматов - один раз
+        boolean empty = !storage.exists();
+        boolean legacy = empty && !generatorStore.exists() && dataFile.exists();
+        boolean yamlRegions = !legacy && (empty || storage == regionStorage) && generatorStore.hasYamlFiles();
+        boolean fromRegions = empty && storage != regionStorage && !yamlRegions && generatorStore.exists();
+        boolean migrate = legacy || yamlRegions || fromRegions;
+        if (empty && !migrate && !journal.hasReplay()) return;
+
+        GeneratorManager generatorManager = plugin.getGeneratorManager();
+        generatorManager.clearGenerators();
+        restorer.clear();
+
+        // Сначала снимок и журнал поверх него, регистрация - потом
+        Map<String, PlacedGenerator> loaded = new LinkedHashMap<>();
+        Consumer<PlacedGenerator> collect = generator -> loaded.put(generator.getLocationKey(), generator);
+        if (legacy) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
+            ConfigurationSection section = config.getConfigurationSection("generators");
+            long downtime = downtime(Math.max(config.getLong("saved-at", 0), lastCommit));
+            generatorCodec.downtime = downtime;
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    ConfigurationSection gen = section.getConfigurationSection(key);
+                    if (gen != null) loadGenerator(key, gen, downtime, collect);
+                }
+            }
+        } else {
+            // Сервер жил до последнего коммита журнала, а не до последнего сохранения
+            long savedAt = YamlConfiguration.loadConfiguration(stateFile).getLong("saved-at", 0);
+            long downtime = downtime(Math.max(savedAt, lastCommit));
+            generatorCodec.downtime = downtime;
+            if (yamlRegions) {
+                // Незавершённый переезд: YAML главнее, .dat перепишутся ниже
+                generatorStore.loadYaml("generators", (key, gen) -> loadGenerator(key, gen, downtime, collect));
+            } else if (fromRegions) {
+                regionStorage.load(collect, downtime);
+            } else {
+                storage.load(collect, downtime);
+            }
+        }
+
+        int replayed = journal.replay(loaded, storage::markRemoved);
+        for (PlacedGenerator generator : loaded.values()) {
+            restoreGenerator(generator);
+        }
+        restorer.start();
+        plugin.getLogger().info("Загружено " + generatorManager.getGeneratorCount() + " генераторов"
+                + " (ждут загрузки чанка: " + restorer.getWaitingCount() + ")");
+        if (replayed > 0) plugin.getLogger().info("[Journal] Восстановлено изменений из журнала: " + replayed);
+
+        if (migrate) {
+            // Переезд: пишем всё в текущее хранилище один раз, старые файлы оставляем копией.
+            // Убираем их, только если запись дошла до диска или базы - иначе данные есть лишь в памяти
+            AtomicBoolean durable = new AtomicBoolean();
+            saveGenerators(true, () -> durable.set(true));
+            if (!storage.flush(plugin.getConfigManager().getSaveShutdownTimeoutMillis()) || !durable.get()) {
+                plugin.getLogger().warning("[Data] Перенос генераторов не записан, старые файлы оставлены");
+            } else {
+                if (legacy && dataFile.renameTo(new File(dataFile.getPath() + ".migrated"))) {
+                    plugin.getLogger().info("[Data] generators.yml перенесён в хранилище генераторов");
+                }
+                if (yamlRegions) {
+                    generatorStore.retireYamlFiles();
+                    plugin.getLogger().info("[Data] Регионы генераторов перенесены из YAML");
+                }
+                if (storage != regionStorage && generatorDir.isDirectory()
+                        && generatorDir.renameTo(new File(generatorDir.getPath() + ".migrated"))) {
+                    plugin.getLogger().info("[Data] Файлы регионов генераторов перенесены в базу данных");
+                }
+            }
+        }
     }
 
-    public void loadMultiBlockStructures() {
-        if (!multiBlockFile.exists()) {
-            multiBlockFile.getParentFile().mkdirs();
-            try { multiBlockFile.createNewFile(); } catch (IOException e) { }
-            return;
+    // Хранилище по конфигу; без связи с базой генераторы остаются в файлах
+    private GeneratorStorage storage() {
+        if (storage != null) return storage;
+        storage = regionStorage;
+        if (!"file".equals(plugin.getConfigManager().getDatabaseType())) {
+            DatabaseManager database = null;
+            try {
+                database = new DatabaseManager(plugin.getConfigManager().getDatabaseConfig());
+                if (database.connect()) {
+                    storage = new SqlGeneratorStorage(plugin, database);
+                    plugin.getLogger().info("[Data] Генераторы хранятся в базе данных");
+                    return storage;
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("[Data] База данных недоступна: " + e.getMessage());
+            }
+            if (database != null) database.close();
+            plugin.getLogger().severe("[Data] Нет связи с базой данных - генераторы сохраняются в файлы");
         }
+        return storage;
+    }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(multiBlockFile);
-        ConfigurationSection section = config.getConfigurationSection("structures");
+    // Время простоя сервера в догон не засчитываем
+    private long downtime(long savedAt) {
+        return savedAt > 0 ? Math.max(0, System.currentTimeMillis() - savedAt) : 0;
+    }
+
+    private void loadGenerator(String key, ConfigurationSection gen, long downtime, Consumer<PlacedGenerator> reader) {
+        try {
+            String typeId = gen.getString("type");
+            String ownerStr = gen.getString("owner");
+            UUID owner = (ownerStr == null || ownerStr.equals("0-0-0-0-0"))
+                    ? PlacedGenerator.NO_OWNER
+                    : UUID.fromString(ownerStr);
+            String[] parts = key.split(";");
+
+            PlacedGenerator generator = new PlacedGenerator(typeId, owner, parts[0],
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            generator.setCurrentTick(gen.getInt("current-tick", 0));
+            generator.setTotalGenerated(gen.getLong("total-generated", 0));
+            generator.setBroken(gen.getBoolean("broken", false));
+            generator.setUpgradeLevel(gen.getInt("upgrade-level", 0));
+            generator.setMineHealth(gen.getInt("mine-health", 0));
+            long lastEvaluated = gen.getLong("last-evaluated", 0);
+            if (lastEvaluated > 0) generator.setLastEvaluated(lastEvaluated + downtime);
+            loadStorage(generator, gen.getConfigurationSection("storage"));
+            generator.clearDirty();
+            reader.accept(generator);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Ошибка загрузки: " + key);
+        }
+    }
+
+    // Блок и голограмма - когда дойдёт очередь чанка, а не отдельной задачей на каждый генератор
+    private void restoreGenerator(PlacedGenerator generator) {
+        plugin.getGeneratorManager().registerGenerator(generator);
+        restorer.add(generator);
+    }
+
+    /**
+     * Restores loaded generators still waiting for this chunk.
+     */
+    public void onChunkLoad(@NotNull String worldName, int chunkX, int chunkZ) {
+        restorer.onChunkLoad(worldName, chunkX, chunkZ);
+    }
+
+    // Хранилище в файле - по материалам, в памяти - по индексу дропа
+    private void loadStorage(PlacedGenerator generator, ConfigurationSection section) {
         if (section == null) return;
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        if (type == null) return;
+        for (String materialName : section.getKeys(false)) {
+            GeneratorManager.addStored(generator, type, materialName, section.getLong(materialName));
+        }
+    }
 
-        for (String key : section.getKeys(false)) {
-            ConfigurationSection s = section.getConfigurationSection(key);
-            if (s == null) continue;
+    /**
+     * Saves the generators changed since the last save.
+     */
+    public void saveGenerators() {
+        saveGenerators(false);
+    }
 
-            try {
-                UUID owner = UUID.fromString(s.getString("owner"));
-                String[] parts = key.split(";");
+    /**
+     * @param all rewrite every region, not only changed ones (on shutdown: the
+     *            timer progress of unchanged generators is saved too)
+     */
+    public void saveGenerators(boolean all) {
+        saveGenerators(all, null);
+    }
+
+    /**
+     * @param onDurable runs on the storage thread once the save is written; not run if it failed
+     */
+    private void saveGenerators(boolean all, @Nullable Runnable onDurable) {
+        long covered = journal.rotate();
+        // Журнал до этого сохранения больше не нужен - если всё записалось
+        int written = storage().save(all, () -> {
+            journal.dropSegments(covered);
+            if (onDurable != null) onDurable.run();
+        });
+        if (written > 0) plugin.getLogger().fine("[Data] Генераторы: записано (регионов или строк): " + written);
+        saveState();
+    }
+
+    /**
+     * Records a generator change in the journal; it reaches the disk on the next commit.
+     */
+    public void journal(@NotNull PlacedGenerator generator, @NotNull GeneratorJournal.Op op) {
+        journal.record(generator, op);
+        storage().changed(generator, op);
+    }
+
+    @NotNull
+    public GeneratorStorage getStorage() {
+        return storage();
+    }
+
+    // Отметка времени сохранения - по ней считается простой сервера при загрузке
+    private void saveState() {
+        YamlConfiguration state = new YamlConfiguration();
+        state.set("saved-at", System.currentTimeMillis());
+        writer.submit(stateFile, state, null);
+    }
+
+    /**
+     * Waits for queued writes to finish (on shutdown, after the final save).
+     */
+    public void shutdown() {
+        long timeout = plugin.getConfigManager().getSaveShutdownTimeoutMillis();
+        boolean written = writer.shutdown(timeout);
+        if (storage != null) written &= storage.close(timeout);
+        if (!written) {
+            plugin.getLogger().warning("[Data] Сохранение не завершилось за " + timeout + " мс");
+        }
+        // После записи: поток сохранения ещё удаляет покрытые сегменты журнала
+        journal.shutdown(timeout);
+    }
+
+    /**
+     * Writes the generator on the next save; called when a registered generator changes.
+     */
+    public void markDirty(@NotNull PlacedGenerator generator) {
+        storage().markDirty(generator);
+    }
 
-                MultiBlockStructure structure = new MultiBlockStructure(owner, parts[0],
-                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    /**
+     * Removes the generator from storage on the next save; called when it is removed.
+     */
+    public void markRemoved(@NotNull PlacedGenerator generator) {
+        storage().markRemoved(generator);
+    }
 
-                structure.setDrillTypeId(s.getString("drill-type"));
-                structure.setPipeTypeId(s.getString("pipe-type"));
-                structure.setPumpTypeId(s.getString("pump-type"));
-                structure.setComplete(s.getBoolean("complete", false));
-                structure.setCurrentTick(s.getInt("current-tick", 0));
-                structure.setTotalGenerated(s.getLong("total-generated", 0));
+    public void markRemoved(@NotNull MultiBlockStructure structure) {
+        structureStore.markRemoved(structure);
+    }
 
-                plugin.getMultiBlockManager().registerLoadedStructure(structure);
+    public void loadMultiBlockStructures() {
+        boolean legacy = !structureStore.exists() && multiBlockFile.exists();
+        boolean yamlRegions = !legacy && structureStore.hasYamlFiles();
+
+        if (legacy) {
+            ConfigurationSection section = YamlConfiguration.loadConfiguration(multiBlockFile).getConfigurationSection("structures");
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    ConfigurationSection s = section.getConfigurationSection(key);
+                    if (s != null) loadStructure(key, s);
+                }
+            }
+        } else if (yamlRegions) {
+            structureStore.loadYaml("structures", this::loadStructure);
+        } else {
+            structureStore.load(this::restoreStructure, plugin.getConfigManager().getLoadThreads());
+        }
 
-                plugin.getLogger().info("[Data] Загружена вышка: " + key + " complete=" + structure.isComplete());
-            } catch (Exception e) {
-                plugin.getLogger().warning("Ошибка загрузки структуры: " + key);
+        if (legacy || yamlRegions) {
+            // Старые файлы убираем, только если ни одна запись переезда не упала
+            long failures = writer.getFailureCount();
+            saveMultiBlockStructures(true);
+            if (!writer.flush(plugin.getConfigManager().getSaveShutdownTimeoutMillis())
+                    || writer.getFailureCount() != failures) {
+                plugin.getLogger().warning("[Data] Перенос структур не записан, старые файлы оставлены");
+            } else {
+                if (legacy && multiBlockFile.renameTo(new File(multiBlockFile.getPath() + ".migrated"))) {
+                    plugin.getLogger().info("[Data] multiblock.yml перенесён в data/structures/");
+                }
+                if (yamlRegions) structureStore.retireYamlFiles();
             }
         }
 
@@ -142,27 +521,40 @@ public class DataManager {
         }, 40L);
     }
 
-    public void saveMultiBlockStructures() {
-        YamlConfiguration config = new YamlConfiguration();
-        Map<String, MultiBlockStructure> structures = plugin.getMultiBlockManager().getStructures();
-
-        for (Map.Entry<String, MultiBlockStructure> entry : structures.entrySet()) {
-            MultiBlockStructure s = entry.getValue();
-            String path = "structures." + entry.getKey();
-            config.set(path + ".owner", s.getOwnerUUID().toString());
-            config.set(path + ".drill-type", s.getDrillTypeId());
-            config.set(path + ".pipe-type", s.getPipeTypeId());
-            config.set(path + ".pump-type", s.getPumpTypeId());
-            config.set(path + ".complete", s.isComplete());
-            config.set(path + ".current-tick", s.getCurrentTick());
-            config.set(path + ".total-generated", s.getTotalGenerated());
+    private void loadStructure(String key, ConfigurationSection s) {
+        try {
+            UUID owner = UUID.fromString(s.getString("owner"));
+            String[] parts = key.split(";");
+
+            MultiBlockStructure structure = new MultiBlockStructure(owner, parts[0],
+                    Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+
+            structure.setDrillTypeId(s.getString("drill-type"));
+            structure.setPipeTypeId(s.getString("pipe-type"));
+            structure.setPumpTypeId(s.getString("pump-type"));
+            structure.setComplete(s.getBoolean("complete", false));
+            structure.setCurrentTick(s.getInt("current-tick", 0));
+            structure.setTotalGenerated(s.getLong("total-generated", 0));
+            structure.clearDirty();
+            restoreStructure(structure);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Ошибка загрузки структуры: " + key);
         }
+    }
 
-        try {
-            multiBlockFile.getParentFile().mkdirs();
-            config.save(multiBlockFile);
-            plugin.getLogger().info("[Data] Сохранено " + structures.size() + " вышек");
-        } catch (IOException e) { }
+    private void restoreStructure(MultiBlockStructure structure) {
+        plugin.getMultiBlockManager().registerLoadedStructure(structure);
+        plugin.getLogger().info("[Data] Загружена вышка: " + structure.getStructureKey() + " complete=" + structure.isComplete());
+    }
+
+    public void saveMultiBlockStructures() {
+        saveMultiBlockStructures(false);
+    }
+
+    public void saveMultiBlockStructures(boolean all) {
+        Map<String, MultiBlockStructure> structures = plugin.getMultiBlockManager().getStructures();
+        int regions = structureStore.save(structures.values(), all);
+        if (regions > 0) plugin.getLogger().info("[Data] Сохранено " + structures.size() + " вышек (регионов: " + regions + ")");
     }
 
     public void startAutoSave() {
@@ -171,6 +563,15 @@ public class DataManager {
             saveGenerators();
             saveMultiBlockStructures();
         }, interval, interval);
+
+        int commitInterval = plugin.getConfigManager().getJournalCommitIntervalTicks();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            journal.commit();
+            // Журнал разросся - сохраняемся досрочно, покрытые сегменты удалятся
+            if (journal.getUncompactedBytes() > plugin.getConfigManager().getJournalCompactSizeBytes()) {
+                saveGenerators();
+            }
+        }, commitInterval, commitInterval);
     }
 
     // Casino block methods (simple memory-based storage for now)
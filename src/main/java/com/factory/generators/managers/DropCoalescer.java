@@ -0,0 +1,125 @@
+package com.factory.generators.managers;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects generator drops during a tick and spawns them in one flush:
+ * everything of the same item dropped at the same block becomes one stack
+ * (topping up an existing item entity nearby if there is one) instead of an
+ * entity per roll. Pending drops are grouped per chunk only to find them quickly.
+ */
+public class DropCoalescer {
+
+    private static final double MERGE_RADIUS = 1.5;
+
+    private final Map<World, Map<Long, List<Pending>>> worlds = new HashMap<>();
+    private int pendingCount;
+
+    /**
+     * Drops of one item waiting to be spawned at a block.
+     */
+    private static final class Pending {
+        final ItemStack prototype;
+        final Location location;
+        final int blockX;
+        final int blockY;
+        final int blockZ;
+        long amount;
+
+        Pending(ItemStack prototype, Location location) {
+            this.prototype = prototype;
+            this.location = location;
+            this.blockX = location.getBlockX();
+            this.blockY = location.getBlockY();
+            this.blockZ = location.getBlockZ();
+        }
+
+        boolean isAt(Location other) {
+            return blockX == other.getBlockX() && blockY == other.getBlockY() && blockZ == other.getBlockZ();
+        }
+    }
+
+    /**
+     * Queues {@code amount} of {@code item} to be spawned at {@code location} on the next flush.
+     * Only drops at the same block merge, so each generator's output lands on its own block.
+     */
+    public void add(@NotNull ItemStack item, @NotNull Location location, long amount) {
+        World world = location.getWorld();
+        if (world == null || amount <= 0) return;
+
+        long chunk = GeneratorBuckets.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        List<Pending> group = worlds.computeIfAbsent(world, k -> new HashMap<>())
+                .computeIfAbsent(chunk, k -> new ArrayList<>(2));
+        for (int i = 0; i < group.size(); i++) {
+            Pending pending = group.get(i);
+            if (pending.isAt(location) && pending.prototype.isSimilar(item)) {
+                pending.amount += amount;
+                return;
+            }
+        }
+
+        Pending pending = new Pending(item, location);
+        pending.amount = amount;
+        group.add(pending);
+        pendingCount++;
+    }
+
+    public boolean isEmpty() {
+        return pendingCount == 0;
+    }
+
+    /**
+     * Spawns everything queued since the last flush.
+     */
+    public void flush() {
+        if (pendingCount == 0) return;
+
+        for (Map<Long, List<Pending>> chunks : worlds.values()) {
+            for (List<Pending> group : chunks.values()) {
+                for (Pending pending : group) {
+                    spawn(pending);
+                }
+            }
+        }
+        worlds.clear();
+        pendingCount = 0;
+    }
+
+    private void spawn(Pending pending) {
+        World world = pending.location.getWorld();
+        int stackSize = Math.max(1, pending.prototype.getMaxStackSize());
+        long amount = pending.amount;
+
+        // Сначала доливаем в уже лежащий рядом стак того же предмета
+        for (Entity entity : world.getNearbyEntities(pending.location, MERGE_RADIUS, MERGE_RADIUS, MERGE_RADIUS)) {
+            if (amount <= 0) break;
+            if (!(entity instanceof Item) || entity.isDead()) continue;
+
+            Item existing = (Item) entity;
+            ItemStack stack = existing.getItemStack();
+            if (stack.getAmount() >= stackSize || !stack.isSimilar(pending.prototype)) continue;
+
+            int add = (int) Math.min(stackSize - stack.getAmount(), amount);
+            stack.setAmount(stack.getAmount() + add);
+            existing.setItemStack(stack);
+            amount -= add;
+        }
+
+        while (amount > 0) {
+            ItemStack stack = pending.prototype.clone();
+            stack.setAmount((int) Math.min(stackSize, amount));
+            world.dropItem(pending.location, stack);
+            amount -= stack.getAmount();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.IronFactory;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Particles and sounds of generators, drill rigs and events.
+ * Effects are queued per chunk during a tick and sent in one flush: identical
+ * effects at the same block become one emission with a higher count, chunks
+ * nobody is near are skipped, and per-chunk / per-player budgets cap the packets sent.
+ */
+public class EffectDispatcher {
+
+    private final IronFactory plugin;
+    private final Map<World, Map<Long, List<Effect>>> worlds = new HashMap<>();
+    private final List<Player> viewers = new ArrayList<>();
+    private final Map<UUID, int[]> sentToPlayer = new HashMap<>();
+    private int pendingCount;
+
+    // Статистика: поставлено в очередь / слито / некому показать / срезано лимитами / отправлено пакетов
+    private long queued;
+    private long merged;
+    private long culled;
+    private long throttled;
+    private long sent;
+
+    /**
+     * One queued particle or sound.
+     */
+    private static final class Effect {
+        final Location location;
+        final int blockX;
+        final int blockY;
+        final int blockZ;
+        final Particle particle;  // null - звук
+        final Sound sound;
+        final double offsetX;
+        final double offsetY;
+        final double offsetZ;
+        final double extra;
+        final Object data;
+        final float pitch;
+        int count;
+        float volume;
+
+        Effect(Location location, Particle particle, Sound sound, int count,
+               double offsetX, double offsetY, double offsetZ, double extra, Object data,
+               float volume, float pitch) {
+            this.location = location;
+            this.blockX = location.getBlockX();
+            this.blockY = location.getBlockY();
+            this.blockZ = location.getBlockZ();
+            this.particle = particle;
+            this.sound = sound;
+            this.count = count;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.extra = extra;
+            this.data = data;
+            this.volume = volume;
+            this.pitch = pitch;
+        }
+
+        // Сливаются только эффекты одного блока - иначе всё ушло бы в точку первого эффекта чанка
+        boolean sameAs(Effect other) {
+            return blockX == other.blockX && blockY == other.blockY && blockZ == other.blockZ
+                    && particle == other.particle && sound == other.sound
+                    && offsetX == other.offsetX && offsetY == other.offsetY && offsetZ == other.offsetZ
+                    && extra == other.extra && pitch == other.pitch && Objects.equals(data, other.data);
+        }
+    }
+
+    public EffectDispatcher(IronFactory plugin) {
+        this.plugin = plugin;
+    }
+
+    public void particle(@NotNull Particle particle, @NotNull Location location, int count,
+                         double offsetX, double offsetY, double offsetZ, double extra) {
+        particle(particle, location, count, offsetX, offsetY, offsetZ, extra, null);
+    }
+
+    public <T> void particle(@NotNull Particle particle, @NotNull Location location, int count,
+                             double offsetX, double offsetY, double offsetZ, double extra, @Nullable T data) {
+        queue(new Effect(location, particle, null, count, offsetX, offsetY, offsetZ, extra, data, 0f, 0f));
+    }
+
+    public void sound(@NotNull Location location, @NotNull Sound sound, float volume, float pitch) {
+        queue(new Effect(location, null, sound, 1, 0, 0, 0, 0, null, volume, pitch));
+    }
+
+    private void queue(Effect effect) {
+        World world = effect.location.getWorld();
+        if (world == null) return;
+        queued++;
+
+        long chunk = GeneratorBuckets.chunkKey(effect.blockX >> 4, effect.blockZ >> 4);
+        List<Effect> group = worlds.computeIfAbsent(world, k -> new HashMap<>())
+                .computeIfAbsent(chunk, k -> new ArrayList<>(4));
+        for (int i = 0; i < group.size(); i++) {
+            Effect pending = group.get(i);
+            if (pending.sameAs(effect)) {
+                // Одинаковые эффекты в блоке - одна отправка с суммарным количеством
+                pending.count = Math.min(pending.count + effect.count,
+                        Math.max(pending.count, plugin.getConfigManager().getEffectsMaxParticleCount()));
+                pending.volume = Math.max(pending.volume, effect.volume);
+                merged++;
+                return;
+            }
+        }
+        group.add(effect);
+        pendingCount++;
+    }
+
+    /**
+     * Sends everything queued since the last flush. Called once at the end of each tick.
+     */
+    public void flush() {
+        if (pendingCount == 0) return;
+
+        ConfigManager config = plugin.getConfigManager();
+        PlayerGrid grid = plugin.getGeneratorManager().getPlayerGrid();
+        double radius = config.getEffectsViewDistance();
+        int maxPerChunk = config.getEffectsMaxPerChunk();
+        int maxPerPlayer = config.getEffectsMaxPerPlayer();
+
+        for (Map.Entry<World, Map<Long, List<Effect>>> entry : worlds.entrySet()) {
+            String worldName = entry.getKey().getName();
+            for (List<Effect> group : entry.getValue().values()) {
+                Location center = group.get(0).location;
+                viewers.clear();
+                grid.collectPlayersNear(worldName, center.getX(), center.getY(), center.getZ(), radius, viewers);
+                if (viewers.isEmpty()) {
+                    culled += group.size();
+                    continue;
+                }
+
+                int limit = Math.min(group.size(), maxPerChunk);
+                throttled += group.size() - limit;
+                for (int i = 0; i < limit; i++) {
+                    send(group.get(i), maxPerPlayer);
+                }
+            }
+        }
+
+        worlds.clear();
+        sentToPlayer.clear();
+        viewers.clear();
+        pendingCount = 0;
+    }
+
+    private void send(Effect effect, int maxPerPlayer) {
+        for (int i = 0; i < viewers.size(); i++) {
+            Player player = viewers.get(i);
+            int[] used = sentToPlayer.computeIfAbsent(player.getUniqueId(), k -> new int[1]);
+            if (used[0] >= maxPerPlayer) {
+                throttled++;
+                continue;
+            }
+            used[0]++;
+            sent++;
+
+            if (effect.particle == null) {
+                player.playSound(effect.location, effect.sound, effect.volume, effect.pitch);
+            } else if (effect.data == null) {
+                player.spawnParticle(effect.particle, effect.location, effect.count,
+                        effect.offsetX, effect.offsetY, effect.offsetZ, effect.extra);
+            } else {
+                player.spawnParticle(effect.particle, effect.location, effect.count,
+                        effect.offsetX, effect.offsetY, effect.offsetZ, effect.extra, effect.data);
+            }
+        }
+    }
+
+    public long getQueued() { return queued; }
+    public long getMerged() { return merged; }
+    public long getCulled() { return culled; }
+    public long getThrottled() { return throttled; }
+    public long getSent() { return sent; }
+}
@@ -11,7 +11,11 @@ import org.bukkit.Particle;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * Manages random events for generators (diseases, overload, rust, misalignment, earthquakes).
@@ -20,6 +24,8 @@ public class EventManager {
 
     private static final Random RANDOM = new Random();
     private final IronFactory plugin;
+    // Генераторы с активной болезнью: тикаем только их, а не все подряд
+    private final Set<PlacedGenerator> ailing = Collections.newSetFromMap(new IdentityHashMap<>());
 
     // Event configuration
     private static final int DISEASE_DURATION_TICKS = 6000;  // 5 minutes
@@ -51,6 +57,54 @@ public class EventManager {
         }
     }
 
+    /**
+     * Samples ticks until the next random event for a scheduled generator.
+     * Per-second rolls are Bernoulli trials, so the wait is geometric:
+     * one draw replaces a roll every second.
+     */
+    public long rollNextEventDelay() {
+        double none = 1.0;
+        for (GeneratorEvent event : GeneratorEvent.values()) {
+            none *= 1.0 - event.getProbability() / 20.0;
+        }
+        if (none >= 1.0) return Long.MAX_VALUE / 2;
+
+        double u = 1.0 - RANDOM.nextDouble();  // (0, 1]
+        long seconds = 1 + (long) Math.floor(Math.log(u) / Math.log(none));
+        return Math.min(seconds, Long.MAX_VALUE / 40) * 20;
+    }
+
+    /**
+     * Fires the random event that was sampled by {@link #rollNextEventDelay()}.
+     * The type is picked in one draw with the same odds as the per-second check
+     * in {@link #checkRandomEvents}: an event wins if it hits and none before it did.
+     */
+    public void triggerRandomEvent(PlacedGenerator generator, Location location) {
+        if (generator.isBroken() || generator.hasAilment()) return;
+
+        GeneratorEvent[] events = GeneratorEvent.values();
+        double[] weights = new double[events.length];
+        double total = 0;
+        double noneBefore = 1.0;
+        for (int i = 0; i < events.length; i++) {
+            double chance = Math.max(0, events[i].getProbability() / 20.0);
+            weights[i] = noneBefore * chance;
+            total += weights[i];
+            noneBefore *= 1.0 - chance;
+        }
+        if (total <= 0) return;  // все вероятности обнулены в конфиге
+
+        double roll = RANDOM.nextDouble() * total;
+        GeneratorEvent picked = null;
+        for (int i = 0; i < events.length; i++) {
+            if (weights[i] <= 0) continue;
+            picked = events[i];  // при ошибке округления - последнее возможное
+            roll -= weights[i];
+            if (roll < 0) break;
+        }
+        afflictGenerator(generator, picked, location);
+    }
+
     /**
      * Afflict a generator with a disease.
      */
@@ -59,6 +113,8 @@ public class EventManager {
 
         GeneratorAilment ailment = new GeneratorAilment(event, DISEASE_DURATION_TICKS, DISEASE_SPEED_PENALTY);
         generator.setAilment(ailment);
+        ailing.add(generator);
+        plugin.getGeneratorManager().reschedule(generator);
 
         Logger.security("Generator at " + location + " afflicted with: " + event.getDisplayName());
 
@@ -88,6 +144,8 @@ public class EventManager {
         if (!ailment.isActive()) {
             Logger.info("Generator at " + generator.getLocation() + " cured from: " + ailment.getEventType().getDisplayName());
             generator.cureAilment();
+            ailing.remove(generator);
+            plugin.getGeneratorManager().reschedule(generator);
             return true;
         }
 
@@ -107,23 +165,30 @@ public class EventManager {
     }
 
     /**
-     * Tick all active ailments.
+     * Collects generators with an active ailment for the once-per-second pass.
      */
-    public void tickAilments() {
-        var generators = plugin.getGeneratorManager().getPlacedGenerators().values();
-        if (generators.isEmpty()) return;  // Early exit if no generators
+    public void collectAiling(List<PlacedGenerator> out) {
+        out.addAll(ailing);
+    }
 
-        for (PlacedGenerator generator : generators) {
-            if (!generator.hasAilment()) continue;  // Skip if no ailment
+    /**
+     * Tick one generator's ailment.
+     */
+    public void tickAilment(PlacedGenerator generator) {
+        if (!generator.hasAilment() || !generator.isRegistered()) {
+            ailing.remove(generator);
+            return;
+        }
 
-            GeneratorAilment ailment = generator.getAilment();
-            ailment.tick();
+        GeneratorAilment ailment = generator.getAilment();
+        ailment.tick();
 
-            // Remove if expired
-            if (!ailment.isActive()) {
-                Logger.info("Ailment expired for generator at " + generator.getLocation());
-                generator.cureAilment();
-            }
+        // Remove if expired
+        if (!ailment.isActive()) {
+            Logger.info("Ailment expired for generator at " + generator.getLocation());
+            generator.cureAilment();
+            ailing.remove(generator);
+            plugin.getGeneratorManager().reschedule(generator);
         }
     }
 
@@ -146,27 +211,28 @@ public class EventManager {
      * Trigger an earthquake - random generators get destroyed.
      */
     public void triggerEarthquake() {
-        var generators = plugin.getGeneratorManager().getPlacedGenerators();
-        if (generators.isEmpty()) return;
+        int total = plugin.getGeneratorManager().getGeneratorCount();
+        if (total == 0) return;
 
-        // Create a safe copy to avoid ConcurrentModificationException
-        var generatorsList = new java.util.ArrayList<>(generators.values());
-        int affectedCount = Math.max(1, (int) (generatorsList.size() * 0.1));  // 10% of generators
+        int affectedCount = Math.max(1, (int) (total * 0.1));  // 10% of generators
 
         Logger.security("EARTHQUAKE TRIGGERED! Affecting " + affectedCount + " generators");
         Bukkit.broadcastMessage("§c§l[ЗЕМЛЕТРЯСЕНИЕ] Генераторы начинают падать!");
 
-        int affected = 0;
-        for (PlacedGenerator generator : generatorsList) {
-            if (affected >= affectedCount) break;
+        // Breaking only reschedules - the generators stay registered, so the live view is safe to walk
+        int[] affected = {0};
+        plugin.getGeneratorManager().forEachGenerator(generator -> {
+            if (affected[0] >= affectedCount) return;
             if (RANDOM.nextDouble() < 0.5 && !generator.isBroken()) {
                 generator.setBroken(true);
-                affected++;
+                plugin.getGeneratorManager().reschedule(generator);
+                plugin.getDataManager().journal(generator, GeneratorJournal.Op.AILMENT);
+                affected[0]++;
 
                 Location loc = generator.getLocation();
                 if (loc != null && loc.getWorld() != null) {
-                    loc.getWorld().spawnParticle(Particle.EXPLOSION_NORMAL, loc, 20, 0.5, 0.5, 0.5, 0.1);
-                    loc.getWorld().playSound(loc, Sound.ENTITY_GENERIC_EXPLODE, 1f, 0.5f);
+                    plugin.getEffectDispatcher().particle(Particle.EXPLOSION_NORMAL, loc, 20, 0.5, 0.5, 0.5, 0.1);
+                    plugin.getEffectDispatcher().sound(loc, Sound.ENTITY_GENERIC_EXPLODE, 1f, 0.5f);
                 }
 
                 Player owner = Bukkit.getPlayer(generator.getOwnerUUID());
@@ -174,22 +240,20 @@ public class EventManager {
                     owner.sendMessage("§c[Землетрясение] Твой генератор упал!");
                 }
             }
-        }
+        });
     }
 
     /**
-     * Spawn visual effects for an event (synchronously to ensure thread safety).
+     * Queues visual effects for an event with the effect dispatcher.
      */
     private void spawnEventParticles(Location location, GeneratorEvent event, int times) {
         if (location == null || location.getWorld() == null) return;
 
-        // Spawn particles immediately (sync only, no sleep)
-        for (int i = 0; i < times; i++) {
-            location.getWorld().spawnParticle(event.getParticle(), location.clone().add(0, 1, 0),
-                    15, 0.3, 0.3, 0.3, 0.05);
-        }
+        // One emission with the combined count instead of `times` separate ones
+        plugin.getEffectDispatcher().particle(event.getParticle(), location.clone().add(0, 1, 0),
+                15 * times, 0.3, 0.3, 0.3, 0.05);
 
         // Play sound once
-        location.getWorld().playSound(location, event.getSound(), 0.5f, 1f);
+        plugin.getEffectDispatcher().sound(location, event.getSound(), 0.5f, 1f);
     }
 }
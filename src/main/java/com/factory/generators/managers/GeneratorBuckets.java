@@ -0,0 +1,199 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.models.PlacedGenerator;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Per-world, per-chunk buckets of placed generators.
+ * A bucket is active while its chunk is loaded, so the tick loop only walks
+ * generators that can actually work instead of every placement on the server.
+ */
+public class GeneratorBuckets {
+
+    private final Map<String, Map<Long, Bucket>> worlds = new HashMap<>();
+    private final List<Bucket> activeBuckets = new ArrayList<>();
+
+    /**
+     * Generators of a single chunk.
+     */
+    static final class Bucket {
+        final String worldName;
+        final int chunkX;
+        final int chunkZ;
+        final List<PlacedGenerator> generators = new ArrayList<>();
+        boolean active;
+        int activeIndex = -1;
+
+        Bucket(String worldName, int chunkX, int chunkZ) {
+            this.worldName = worldName;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((long) chunkZ << 32);
+    }
+
+    /**
+     * Adds a generator to the bucket of its chunk.
+     * A new bucket starts active if the chunk is already loaded.
+     */
+    public void add(@NotNull PlacedGenerator generator) {
+        int chunkX = generator.getX() >> 4;
+        int chunkZ = generator.getZ() >> 4;
+        Map<Long, Bucket> buckets = worlds.computeIfAbsent(generator.getWorldName(), k -> new HashMap<>());
+        Bucket bucket = buckets.get(chunkKey(chunkX, chunkZ));
+        if (bucket == null) {
+            bucket = new Bucket(generator.getWorldName(), chunkX, chunkZ);
+            buckets.put(chunkKey(chunkX, chunkZ), bucket);
+            World world = Bukkit.getWorld(generator.getWorldName());
+            if (world != null && world.isChunkLoaded(chunkX, chunkZ)) {
+                activate(bucket);
+            }
+        }
+        bucket.generators.add(generator);
+        generator.setChunkLoaded(bucket.active);
+    }
+
+    /**
+     * Removes a generator from its bucket, dropping the bucket once it is empty.
+     */
+    public void remove(@NotNull PlacedGenerator generator) {
+        Map<Long, Bucket> buckets = worlds.get(generator.getWorldName());
+        if (buckets == null) return;
+
+        long key = chunkKey(generator.getX() >> 4, generator.getZ() >> 4);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) return;
+
+        bucket.generators.remove(generator);
+        if (bucket.generators.isEmpty()) {
+            deactivate(bucket);
+            buckets.remove(key);
+            if (buckets.isEmpty()) worlds.remove(generator.getWorldName());
+        }
+    }
+
+    public void clear() {
+        worlds.clear();
+        activeBuckets.clear();
+    }
+
+    /**
+     * Called from ChunkLoadEvent.
+     *
+     * @return generators of the chunk, or null if it has none
+     */
+    @Nullable
+    public List<PlacedGenerator> onChunkLoad(@NotNull String worldName, int chunkX, int chunkZ) {
+        Bucket bucket = getBucket(worldName, chunkX, chunkZ);
+        if (bucket == null) return null;
+        activate(bucket);
+        return bucket.generators;
+    }
+
+    /**
+     * Called from ChunkUnloadEvent.
+     *
+     * @return generators of the chunk, or null if it has none
+     */
+    @Nullable
+    public List<PlacedGenerator> onChunkUnload(@NotNull String worldName, int chunkX, int chunkZ) {
+        Bucket bucket = getBucket(worldName, chunkX, chunkZ);
+        if (bucket == null) return null;
+        deactivate(bucket);
+        return bucket.generators;
+    }
+
+    /**
+     * Walks generators of loaded chunks only.
+     */
+    public void forEachActive(@NotNull Consumer<PlacedGenerator> action) {
+        for (int b = 0; b < activeBuckets.size(); b++) {
+            List<PlacedGenerator> generators = activeBuckets.get(b).generators;
+            for (int i = 0; i < generators.size(); i++) {
+                action.accept(generators.get(i));
+            }
+        }
+    }
+
+    /**
+     * Walks every bucket regardless of chunk state.
+     */
+    public void forEach(@NotNull Consumer<PlacedGenerator> action) {
+        for (Map<Long, Bucket> buckets : worlds.values()) {
+            for (Bucket bucket : buckets.values()) {
+                List<PlacedGenerator> generators = bucket.generators;
+                for (int i = 0; i < generators.size(); i++) {
+                    action.accept(generators.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the generators of a world's chunks within the bounds (inclusive).
+     */
+    public void forEachInChunks(@NotNull String worldName, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                @NotNull Consumer<PlacedGenerator> action) {
+        Map<Long, Bucket> buckets = worlds.get(worldName);
+        if (buckets == null) return;
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                Bucket bucket = buckets.get(chunkKey(cx, cz));
+                if (bucket == null) continue;
+                List<PlacedGenerator> generators = bucket.generators;
+                for (int i = 0; i < generators.size(); i++) {
+                    action.accept(generators.get(i));
+                }
+            }
+        }
+    }
+
+    public int getActiveBucketCount() {
+        return activeBuckets.size();
+    }
+
+    public int getBucketCount() {
+        int count = 0;
+        for (Map<Long, Bucket> buckets : worlds.values()) count += buckets.size();
+        return count;
+    }
+
+    private Bucket getBucket(String worldName, int chunkX, int chunkZ) {
+        Map<Long, Bucket> buckets = worlds.get(worldName);
+        return buckets == null ? null : buckets.get(chunkKey(chunkX, chunkZ));
+    }
+
+    private void activate(Bucket bucket) {
+        if (bucket.active) return;
+        bucket.active = true;
+        bucket.activeIndex = activeBuckets.size();
+        activeBuckets.add(bucket);
+        for (PlacedGenerator generator : bucket.generators) generator.setChunkLoaded(true);
+    }
+
+    // Swap-remove keeps deactivation O(1)
+    private void deactivate(Bucket bucket) {
+        if (!bucket.active) return;
+        int index = bucket.activeIndex;
+        Bucket last = activeBuckets.remove(activeBuckets.size() - 1);
+        if (last != bucket) {
+            activeBuckets.set(index, last);
+            last.activeIndex = index;
+        }
+        bucket.active = false;
+        bucket.activeIndex = -1;
+        for (PlacedGenerator generator : bucket.generators) generator.setChunkLoaded(false);
+    }
+}
@@ -0,0 +1,385 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.models.PlacedGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of generator changes made between saves, so a crash
+ * loses one commit interval instead of everything since the last autosave.
+ * Changes are collected on the main thread (one entry per block, the latest
+ * wins) and committed as one batch: encoded on the main thread, appended and
+ * fsynced on the journal thread (group commit).
+ * <p>
+ * The journal is split into segments {@code <dir>/<seq>.log}. A save rotates
+ * to a new segment, and once the save's region files are on disk the older
+ * segments are deleted. On startup the surviving segments are replayed over
+ * the region files. Entries carry the full generator state, so replaying one
+ * twice is harmless.
+ */
+public class GeneratorJournal {
+
+    private static final int BATCH_MAGIC = 0x49464A42;  // "IFJB"
+    private static final int BATCH_HEADER = 4 + 8 + 4 + 4;  // magic, время, длина, CRC
+    private static final int BREAK_SIZE = 4 * 3;
+    private static final String EXTENSION = ".log";
+    private static final long REOPEN_FLUSH_MILLIS = 30_000;
+
+    /**
+     * Kind of change; only {@link #BREAK} carries no generator state.
+     * The ordinal is written to disk: append new kinds at the end.
+     */
+    public enum Op {
+        PLACE, BREAK, UPGRADE, REPAIR, AILMENT, OWNER, PROGRESS
+    }
+
+    private static final Op[] OPS = Op.values();
+
+    /**
+     * Latest change of one block since the previous commit.
+     */
+    private static final class Entry {
+        final Op op;
+        final PlacedGenerator generator;
+
+        Entry(Op op, PlacedGenerator generator) {
+            this.op = op;
+            this.generator = generator;
+        }
+    }
+
+    private final File directory;
+    private final RegionStore.Codec<PlacedGenerator> codec;
+    private final Logger logger;
+    private final ExecutorService executor;
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+    private final List<ByteBuffer> replayBatches = new ArrayList<>();
+    private boolean open;
+    private boolean enabled = true;
+    private long segment;
+    private long uncompactedBytes;  // записано в журнал с последнего сохранения
+
+    // Только поток журнала
+    private FileChannel channel;
+    private long channelSegment = -1;
+
+    public GeneratorJournal(@NotNull File directory, @NotNull RegionStore.Codec<PlacedGenerator> codec,
+                            @NotNull Logger logger) {
+        this.directory = directory;
+        this.codec = codec;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IronFactory-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * When disabled, changes are no longer recorded; leftover segments are still replayed.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) pending.clear();
+    }
+
+    /**
+     * Bytes committed since the last {@link #rotate()}, i.e. not yet covered by a save.
+     */
+    public long getUncompactedBytes() {
+        return uncompactedBytes;
+    }
+
+    /**
+     * Records a change of the generator, to be written on the next commit.
+     */
+    public void record(@NotNull PlacedGenerator generator, @NotNull Op op) {
+        if (!open || !enabled) return;
+        String key = generator.getLocationKey();
+        // Порядок - по последнему изменению
+        pending.remove(key);
+        pending.put(key, new Entry(op, generator));
+    }
+
+    /**
+     * Encodes the changes recorded since the last commit and hands them to the
+     * journal thread, which appends them with a single fsync.
+     */
+    public void commit() {
+        if (!open || pending.isEmpty()) return;
+
+        int size = 0;
+        for (Entry entry : pending.values()) {
+            size += 1 + 4 + (entry.op == Op.BREAK ? BREAK_SIZE : 2 + codec.recordSize(entry.generator));
+        }
+
+        RegionStore.StringTable strings = new RegionStore.StringTable();
+        ByteBuffer records = ByteBuffer.allocate(size);
+        for (Entry entry : pending.values()) {
+            PlacedGenerator generator = entry.generator;
+            records.put((byte) entry.op.ordinal());
+            records.putInt(strings.indexOf(generator.getWorldName()));
+            if (entry.op == Op.BREAK) {
+                records.putInt(generator.getX()).putInt(generator.getY()).putInt(generator.getZ());
+            } else {
+                int recordSize = codec.recordSize(generator);
+                records.putShort((short) recordSize);
+                codec.write(generator, records.slice(records.position(), recordSize), strings);
+                records.position(records.position() + recordSize);
+            }
+        }
+
+        byte[][] table = strings.encode();
+        int payload = RegionStore.StringTable.encodedSize(table) + 4 + size;
+        ByteBuffer batch = ByteBuffer.allocate(BATCH_HEADER + payload);
+        batch.putInt(BATCH_MAGIC).putLong(System.currentTimeMillis()).putInt(payload).putInt(0);
+        RegionStore.StringTable.write(batch, table);
+        batch.putInt(pending.size()).put(records.array());
+
+        CRC32 crc = new CRC32();
+        crc.update(batch.array(), BATCH_HEADER, payload);
+        batch.putInt(BATCH_HEADER - 4, (int) crc.getValue());
+        pending.clear();
+
+        byte[] data = batch.array();
+        long target = segment;
+        uncompactedBytes += data.length;
+        execute(() -> append(target, data));
+    }
+
+    /**
+     * Commits pending changes and starts a new segment; call right before a save.
+     *
+     * @return the last segment the save covers (for {@link #dropSegments(long)}), or -1 if the journal is closed
+     */
+    public long rotate() {
+        if (!open) return -1;
+        commit();
+        uncompactedBytes = 0;
+        return segment++;
+    }
+
+    /**
+     * Deletes segments up to and including {@code upTo}; call once the save after
+     * {@link #rotate()} is on disk. Safe from any thread.
+     */
+    public void dropSegments(long upTo) {
+        if (upTo < 0) return;
+        execute(() -> {
+            if (channel != null && channelSegment <= upTo) closeChannel();
+            for (File file : listSegments()) {
+                if (segmentNumber(file) <= upTo && !file.delete()) {
+                    logger.warning("[Journal] Не удалось удалить " + file);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the segments left from the previous run (or, on reload, this one)
+     * and starts a new segment.
+     *
+     * @return time of the last commit found, or 0
+     */
+    public long open() {
+        if (open) {
+            commit();
+            flush(REOPEN_FLUSH_MILLIS);
+        }
+        replayBatches.clear();
+
+        long lastCommit = 0;
+        long lastSegment = segment - 1;
+        for (File file : listSegments()) {
+            lastSegment = Math.max(lastSegment, segmentNumber(file));
+            ByteBuffer buffer;
+            try {
+                buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                logger.severe("[Journal] Не удалось прочитать " + file + ": " + e.getMessage());
+                continue;
+            }
+
+            while (buffer.remaining() >= BATCH_HEADER) {
+                int start = buffer.position();
+                int magic = buffer.getInt();
+                long time = buffer.getLong();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (magic != BATCH_MAGIC || length < 0 || length > buffer.remaining()) {
+                    // Недописанный хвост - сервер упал посреди записи
+                    logger.warning("[Journal] " + file.getName() + ": отброшен обрезанный хвост с позиции " + start);
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                CRC32 crc = new CRC32();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    logger.warning("[Journal] " + file.getName() + ": повреждённая запись на позиции " + start);
+                    break;
+                }
+                replayBatches.add(payload);
+                lastCommit = Math.max(lastCommit, time);
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        segment = lastSegment + 1;
+        uncompactedBytes = 0;
+        open = true;
+        return lastCommit;
+    }
+
+    public boolean hasReplay() {
+        return !replayBatches.isEmpty();
+    }
+
+    /**
+     * Applies the batches read by {@link #open()} to {@code generators}, keyed by
+     * {@link PlacedGenerator#getLocationKey()}. Restored generators are marked dirty
+     * so the next save writes them.
+     *
+     * @param onRemoved receives generators from the map that the journal removed
+     * @return number of entries applied
+     */
+    public int replay(@NotNull Map<String, PlacedGenerator> generators, @NotNull Consumer<PlacedGenerator> onRemoved) {
+        int applied = 0;
+        for (ByteBuffer batch : replayBatches) {
+            try {
+                RegionStore.StringTable strings = RegionStore.StringTable.read(batch);
+                int count = batch.getInt();
+                for (int i = 0; i < count; i++) {
+                    Op op = OPS[batch.get()];
+                    String worldName = strings.get(batch.getInt());
+                    if (op == Op.BREAK) {
+                        String key = worldName + ";" + batch.getInt() + ";" + batch.getInt() + ";" + batch.getInt();
+                        PlacedGenerator removed = generators.remove(key);
+                        if (removed != null) onRemoved.accept(removed);
+                    } else {
+                        int recordSize = batch.getShort() & 0xFFFF;
+                        PlacedGenerator generator = codec.read(worldName, batch.slice(batch.position(), recordSize), strings);
+                        batch.position(batch.position() + recordSize);
+                        if (generator == null) continue;
+                        generator.markDirty();
+                        generators.put(generator.getLocationKey(), generator);
+                    }
+                    applied++;
+                }
+            } catch (RuntimeException e) {
+                logger.warning("[Journal] Пропущен пакет изменений: " + e);
+            }
+        }
+        replayBatches.clear();
+        return applied;
+    }
+
+    /**
+     * Blocks until everything committed so far is on disk.
+     *
+     * @return false on timeout
+     */
+    public boolean flush(long timeoutMillis) {
+        try {
+            executor.submit(() -> { }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finishes queued appends, closes the file and stops the thread.
+     *
+     * @return true if everything was written in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        execute(this::closeChannel);
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warning("[Journal] Журнал уже закрыт");
+        }
+    }
+
+    private void append(long target, byte[] data) {
+        try {
+            if (channel == null || channelSegment != target) {
+                closeChannel();
+                directory.mkdirs();
+                channel = FileChannel.open(new File(directory, target + EXTENSION).toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                channelSegment = target;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            logger.warning("[Journal] Не удалось записать журнал: " + e.getMessage());
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+        channelSegment = -1;
+    }
+
+    private List<File> listSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION) && segmentNumber(name) >= 0);
+        if (files == null) return new ArrayList<>();
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparingLong(GeneratorJournal::segmentNumber));
+        return segments;
+    }
+
+    private static long segmentNumber(File file) {
+        return segmentNumber(file.getName());
+    }
+
+    private static long segmentNumber(String name) {
+        try {
+            return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.PlacedGenerator;
 import com.factory.generators.models.GeneratorUpgrade;
 import com.factory.generators.models.UpgradeLevel;
+import com.factory.generators.utils.BlockMap;
 import com.factory.generators.utils.Constants;
 import com.factory.generators.utils.Logger;
 import com.factory.generators.utils.Utils;
@@ -16,7 +17,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Manages all placed generators in the world.
@@ -27,15 +29,41 @@ public class GeneratorManager {
     private static final Random RANDOM = new Random();
     private static final int MAX_GENERATORS = 100000;
     private final IronFactory plugin;
-    private final Map<String, PlacedGenerator> placedGenerators;
-    // Index for fast player generator lookup
+    // Per-world index by packed block position; lookups allocate nothing
+    private final BlockMap<PlacedGenerator> placedGenerators;
+    // Owner index: O(1) counts and per-owner iteration, kept in sync by register/unregister/setOwner
     private final Map<UUID, List<PlacedGenerator>> playerGenerators;
+    // Chunk buckets: the tick loop only walks loaded chunks
+    private final GeneratorBuckets buckets;
+    // Next-fire heap: only due generators are touched each tick
+    private final GeneratorScheduler scheduler;
+    // Player positions for require-nearby-player checks
+    private final PlayerGrid playerGrid;
+    // Drops of this tick, spawned merged at the end of it
+    private final DropCoalescer dropCoalescer;
+    // Generators whose chunk just loaded and still owe offline production
+    private final List<PlacedGenerator> pendingCatchUp = new ArrayList<>();
+    // Generator currently handled by wake(); nested reschedules are deferred to it
+    private PlacedGenerator waking;
+    // The first change after a save marks the generator's region (or row) for writing
+    private final Consumer<PlacedGenerator> dirtyListener;
+    // A new owner of a registered generator moves it in the owner index, whoever set it
+    private final BiConsumer<PlacedGenerator, UUID> ownerListener;
 
     public GeneratorManager(IronFactory plugin) {
         this.plugin = plugin;
-        // Use ConcurrentHashMap for thread-safe operations
-        this.placedGenerators = new ConcurrentHashMap<>();
-        this.playerGenerators = new ConcurrentHashMap<>();
+        this.placedGenerators = new BlockMap<>();
+        this.playerGenerators = new HashMap<>();
+        this.buckets = new GeneratorBuckets();
+        this.scheduler = new GeneratorScheduler();
+        this.playerGrid = new PlayerGrid();
+        this.dropCoalescer = new DropCoalescer();
+        this.dirtyListener = generator -> plugin.getDataManager().markDirty(generator);
+        this.ownerListener = (generator, previous) -> {
+            unindexOwner(generator, previous);
+            indexOwner(generator);
+            journal(generator, GeneratorJournal.Op.OWNER);
+        };
     }
 
     /**
@@ -76,14 +104,12 @@ public class GeneratorManager {
                 ? PlacedGenerator.NO_OWNER   // Рудник — владелец назначится при активации
                 : player.getUniqueId();       // Завод — владелец сразу тот кто поставил
         PlacedGenerator generator = new PlacedGenerator(typeId, initialOwner, location);
-        placedGenerators.put(generator.getLocationKey(), generator);
-
-        // Update player index
-        playerGenerators.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>()).add(generator);
+        registerGenerator(generator);
+        journal(generator, GeneratorJournal.Op.PLACE);
 
         plugin.getHologramManager().createHologram(generator, type);
 
-        location.getWorld().playSound(location, Sound.BLOCK_ANVIL_PLACE,
+        plugin.getEffectDispatcher().sound(location, Sound.BLOCK_ANVIL_PLACE,
             Constants.Sound.DEFAULT_VOLUME, Constants.Sound.DEFAULT_PITCH);
         Utils.sendMessage(player, Constants.Messages.SUCCESS_PREFIX + "Генератор установлен!");
         return true;
@@ -100,8 +126,7 @@ public class GeneratorManager {
     public boolean breakGenerator(@NotNull Player player, @NotNull Location location, boolean drop) {
         if (!Utils.isValidLocation(location)) return false;
 
-        String key = PlacedGenerator.createLocationKey(location);
-        PlacedGenerator generator = placedGenerators.get(key);
+        PlacedGenerator generator = placedGenerators.get(location);
         if (generator == null) return false;
 
         if (plugin.getConfigManager().isOnlyOwnerCanBreak()) {
@@ -128,19 +153,11 @@ public class GeneratorManager {
         if (drop && plugin.getConfigManager().isDropOnBreak() && type != null) {
             location.getWorld().dropItemNaturally(location, type.createItem());
         }
+        if (type != null) dropStorage(generator, type, location);
 
-        location.getWorld().playSound(location, Sound.BLOCK_ANVIL_DESTROY,
+        plugin.getEffectDispatcher().sound(location, Sound.BLOCK_ANVIL_DESTROY,
             Constants.Sound.DEFAULT_VOLUME, Constants.Sound.BREAK_PITCH);
-        placedGenerators.remove(key);
-
-        // Update player index with proper synchronization
-        UUID ownerUUID = generator.getOwnerUUID();
-        synchronized (playerGenerators) {
-            List<PlacedGenerator> playerGens = playerGenerators.get(ownerUUID);
-            if (playerGens != null) {
-                playerGens.remove(generator);
-            }
-        }
+        unregisterGenerator(generator);
 
         Utils.sendMessage(player, Constants.Messages.INFO_PREFIX + "Генератор удалён.");
         return true;
@@ -156,8 +173,7 @@ public class GeneratorManager {
     public boolean upgradeGenerator(@NotNull Player player, @NotNull Location location) {
         if (!Utils.isValidLocation(location)) return false;
 
-        String key = PlacedGenerator.createLocationKey(location);
-        PlacedGenerator generator = placedGenerators.get(key);
+        PlacedGenerator generator = placedGenerators.get(location);
         if (generator == null) return false;
 
         GeneratorType currentType = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
@@ -180,23 +196,14 @@ public class GeneratorManager {
         if (nextType == null) return false;
 
         plugin.getHologramManager().removeHologram(generator);
-        placedGenerators.remove(key);
+        unregisterGenerator(generator);
 
         PlacedGenerator newGen = new PlacedGenerator(nextType.getId(), generator.getOwnerUUID(), location);
         newGen.setTotalGenerated(generator.getTotalGenerated());
-        placedGenerators.put(newGen.getLocationKey(), newGen);
-
-        // Update player index with proper synchronization
-        UUID ownerUUID = generator.getOwnerUUID();
-        synchronized (playerGenerators) {
-            List<PlacedGenerator> playerGens = playerGenerators.get(ownerUUID);
-            if (playerGens != null) {
-                playerGens.remove(generator);
-                playerGens.add(newGen);
-            } else {
-                playerGenerators.put(ownerUUID, new ArrayList<PlacedGenerator>() {{ add(newGen); }});
-            }
-        }
+        // Хранилище переносим по материалу: у нового типа дропы могут идти в другом порядке
+        transferStorage(generator, currentType, newGen, nextType, location);
+        registerGenerator(newGen);
+        journal(newGen, GeneratorJournal.Op.UPGRADE);
 
         location.getBlock().setType(nextType.getBlockMaterial());
         plugin.getHologramManager().createHologram(newGen, nextType);
@@ -219,8 +226,7 @@ public class GeneratorManager {
     public boolean repairMine(@NotNull Player player, @NotNull Location location, int amount) {
         if (!Utils.isValidLocation(location)) return false;
 
-        String key = PlacedGenerator.createLocationKey(location);
-        PlacedGenerator generator = placedGenerators.get(key);
+        PlacedGenerator generator = placedGenerators.get(location);
         if (generator == null) return false;
 
         GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
@@ -237,9 +243,10 @@ public class GeneratorManager {
         int healthRestored = Math.min(amount / type.getRepairCostPerPoint(),
                                       type.getMaxHealth() - generator.getMineHealth());
         generator.addMineHealth(healthRestored);
+        reschedule(generator);
 
         Location dropLoc = location.clone().add(0.5, 1.0, 0.5);
-        location.getWorld().spawnParticle(Particle.SMOKE_NORMAL, dropLoc, 15, 0.3, 0.3, 0.3, 0.1);
+        plugin.getEffectDispatcher().particle(Particle.SMOKE_NORMAL, dropLoc, 15, 0.3, 0.3, 0.3, 0.1);
         player.playSound(player.getLocation(), Sound.BLOCK_ANVIL_USE,
             Constants.Sound.DEFAULT_VOLUME, Constants.Sound.DEFAULT_PITCH);
 
@@ -249,8 +256,8 @@ public class GeneratorManager {
                         Constants.Title.FADE_IN, Constants.Title.STAY, Constants.Title.FADE_OUT);
 
         if (generator.isMineRepaired()) {
-        location.getWorld().spawnParticle(Particle.WHITE_SMOKE, dropLoc, 30, 0.5, 0.5, 0.5, 0.1);
-            location.getWorld().playSound(location, Sound.ENTITY_PLAYER_LEVELUP, 1f, 1.5f);
+        plugin.getEffectDispatcher().particle(Particle.WHITE_SMOKE, dropLoc, 30, 0.5, 0.5, 0.5, 0.1);
+            plugin.getEffectDispatcher().sound(location, Sound.ENTITY_PLAYER_LEVELUP, 1f, 1.5f);
             Utils.sendMessage(player, Constants.Messages.SUCCESS_PREFIX + "§aРудник полностью отремонтирован!");
         } else {
             Utils.sendMessage(player, Constants.Messages.INFO_PREFIX + "§eРемонт: " + String.format("%.0f", percent) + "%");
@@ -271,8 +278,7 @@ public class GeneratorManager {
     public boolean healAilment(@NotNull Player player, @NotNull Location location, int amount) {
         if (!Utils.isValidLocation(location)) return false;
 
-        String key = PlacedGenerator.createLocationKey(location);
-        PlacedGenerator generator = placedGenerators.get(key);
+        PlacedGenerator generator = placedGenerators.get(location);
         if (generator == null) return false;
 
         if (!generator.hasAilment()) {
@@ -283,12 +289,12 @@ public class GeneratorManager {
         boolean cured = plugin.getEventManager().cureAilment(generator, amount);
 
         Location dropLoc = location.clone().add(0.5, 1.0, 0.5);
-        location.getWorld().spawnParticle(Particle.HEART, dropLoc, 20, 0.3, 0.3, 0.3, 0.1);
+        plugin.getEffectDispatcher().particle(Particle.HEART, dropLoc, 20, 0.3, 0.3, 0.3, 0.1);
         player.playSound(player.getLocation(), Sound.ENTITY_GENERIC_DRINK, 0.8f, 1.5f);
 
         if (cured) {
-            location.getWorld().spawnParticle(Particle.WHITE_SMOKE, dropLoc, 30, 0.5, 0.5, 0.5, 0.1);
-            location.getWorld().playSound(location, Sound.ENTITY_PLAYER_LEVELUP, 1f, 1.5f);
+            plugin.getEffectDispatcher().particle(Particle.WHITE_SMOKE, dropLoc, 30, 0.5, 0.5, 0.5, 0.1);
+            plugin.getEffectDispatcher().sound(location, Sound.ENTITY_PLAYER_LEVELUP, 1f, 1.5f);
             Utils.sendMessage(player, Constants.Messages.SUCCESS_PREFIX + "§aГенератор исцелён!");
             Logger.info("Generator at " + location + " healed by " + player.getName());
         } else {
@@ -313,8 +319,7 @@ public class GeneratorManager {
     public boolean upgradeGeneratorLevel(@NotNull Player player, @NotNull Location location) {
         if (!Utils.isValidLocation(location)) return false;
 
-        String key = PlacedGenerator.createLocationKey(location);
-        PlacedGenerator generator = placedGenerators.get(key);
+        PlacedGenerator generator = placedGenerators.get(location);
         if (generator == null) return false;
 
         GeneratorUpgrade upgrade = plugin.getConfigManager().getGeneratorUpgrade(generator.getTypeId());
@@ -344,9 +349,11 @@ public class GeneratorManager {
 
         removeItems(player, costMat, costAmount);
         generator.setUpgradeLevel(generator.getUpgradeLevel() + 1);
+        reschedule(generator);
+        journal(generator, GeneratorJournal.Op.UPGRADE);
 
         Location dropLoc = location.clone().add(0.5, 1.0, 0.5);
-        location.getWorld().spawnParticle(Particle.SMOKE_NORMAL, dropLoc, 20, 0.3, 0.3, 0.3, 0.1);
+        plugin.getEffectDispatcher().particle(Particle.SMOKE_NORMAL, dropLoc, 20, 0.3, 0.3, 0.3, 0.1);
         player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP,
             Constants.Sound.DEFAULT_VOLUME, Constants.Sound.DEFAULT_PITCH);
         player.sendTitle(Utils.colorize("&a&lУСПЕХ!"), Utils.colorize("&eУровень: &f" + generator.getUpgradeLevel()),
@@ -356,20 +363,364 @@ public class GeneratorManager {
         return true;
     }
 
-    public void tickAllGenerators() {
-        for (PlacedGenerator generator : new ArrayList<>(placedGenerators.values())) {
-            tickGenerator(generator);
+    /**
+     * Advances the production clock by one server tick and wakes due generators.
+     *
+     * @return true if every due generator was handled before the deadline
+     */
+    public boolean runDueGenerators(long deadlineNanos) {
+        scheduler.advance(1);
+        if (!runCatchUps(deadlineNanos)) return false;
+        return scheduler.runDue(this::wake, deadlineNanos);
+    }
+
+    /**
+     * Collects generators for the once-per-second pass (countdown refresh and polled generators).
+     */
+    public void collectTickable(@NotNull List<PlacedGenerator> out) {
+        buckets.forEachActive(out::add);
+    }
+
+    /**
+     * Adds a generator to the location map and its chunk bucket.
+     * Every insertion (placement, upgrade, load, import) must go through here.
+     */
+    public void registerGenerator(@NotNull PlacedGenerator generator) {
+        PlacedGenerator previous = placedGenerators.put(generator.getWorldName(), generator.getBlockKey(), generator);
+        if (previous != null) {
+            buckets.remove(previous);
+            scheduler.cancel(previous);
+            unindexOwner(previous);
+            previous.setRegistered(false);
+            previous.setDirtyListener(null);
+            previous.setOwnerListener(null);
+        }
+        generator.setRegistered(true);
+        generator.setDirtyListener(dirtyListener);
+        generator.setOwnerListener(ownerListener);
+        if (generator.isDirty()) plugin.getDataManager().markDirty(generator);
+        indexOwner(generator);
+        buckets.add(generator);
+        if (generator.isChunkLoaded()) {
+            if (generator.getLastEvaluated() > 0) pendingCatchUp.add(generator);
+        } else if (generator.getLastEvaluated() == 0 && plugin.getConfigManager().isOfflineCatchUp()) {
+            generator.setLastEvaluated(System.currentTimeMillis());
         }
+        scheduleIfEligible(generator);
     }
 
-    private void tickGenerator(PlacedGenerator generator) {
-        if (generator.isBroken()) return;
+    /**
+     * Removes a generator from the location map and its chunk bucket.
+     */
+    public void unregisterGenerator(@NotNull PlacedGenerator generator) {
+        if (placedGenerators.remove(generator.getWorldName(), generator.getBlockKey(), generator)) {
+            buckets.remove(generator);
+            scheduler.cancel(generator);
+            unindexOwner(generator);
+            generator.setRegistered(false);
+            generator.setDirtyListener(null);
+            generator.setOwnerListener(null);
+            plugin.getDataManager().markRemoved(generator);
+            journal(generator, GeneratorJournal.Op.BREAK);
+        }
+    }
+
+    /**
+     * Drops every placed generator (used before a full reload or replace-import).
+     */
+    public void clearGenerators() {
+        placedGenerators.forEachValue(generator -> {
+            generator.setRegistered(false);
+            generator.setOwnerIndex(-1);
+            generator.setDirtyListener(null);
+            generator.setOwnerListener(null);
+        });
+        placedGenerators.clear();
+        playerGenerators.clear();
+        buckets.clear();
+        scheduler.clear();
+        pendingCatchUp.clear();
+    }
+
+    public void onChunkLoad(@NotNull String worldName, int chunkX, int chunkZ) {
+        List<PlacedGenerator> generators = buckets.onChunkLoad(worldName, chunkX, chunkZ);
+        if (generators == null) return;
+        for (int i = 0; i < generators.size(); i++) {
+            PlacedGenerator generator = generators.get(i);
+            // Догон не делаем прямо в ChunkLoadEvent - дропы заспавнятся на следующем тике
+            if (generator.getLastEvaluated() > 0) {
+                pendingCatchUp.add(generator);
+            } else {
+                scheduleIfEligible(generator);
+            }
+        }
+    }
+
+    public void onChunkUnload(@NotNull String worldName, int chunkX, int chunkZ) {
+        List<PlacedGenerator> generators = buckets.onChunkUnload(worldName, chunkX, chunkZ);
+        if (generators == null) return;
+        boolean catchUp = plugin.getConfigManager().isOfflineCatchUp();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < generators.size(); i++) {
+            PlacedGenerator generator = generators.get(i);
+            scheduleIfEligible(generator);
+            if (catchUp && generator.getLastEvaluated() == 0) generator.setLastEvaluated(now);
+        }
+    }
+
+    /**
+     * Recomputes the next fire time after anything that changes the delay or
+     * whether the generator can work (upgrade, ailment, repair, breakage).
+     */
+    public void reschedule(@NotNull PlacedGenerator generator) {
+        if (!generator.isRegistered()) return;
+        scheduleIfEligible(generator);
+    }
+
+    /**
+     * Reschedules every generator, e.g. after a config reload changed delays.
+     */
+    public void rescheduleAll() {
+        buckets.forEach(this::scheduleIfEligible);
+    }
+
+    /**
+     * Ticks left until the next production cycle.
+     */
+    public int getRemainingTicks(@NotNull PlacedGenerator generator) {
+        if (scheduler.isScheduled(generator)) {
+            return (int) Math.max(0, generator.getNextFireTick() - scheduler.getClock());
+        }
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        if (type == null) return 0;
+        return Math.max(0, getAdjustedDelay(type, generator) - generator.getCurrentTick());
+    }
+
+    /**
+     * Ticks of progress towards the next production cycle (what gets saved as current-tick).
+     */
+    public int getProgressTicks(@NotNull PlacedGenerator generator) {
+        if (scheduler.isScheduled(generator)) {
+            return currentProgress(generator);
+        }
+        return generator.getCurrentTick();
+    }
+
+    /**
+     * Overrides progress towards the next cycle and reschedules accordingly.
+     */
+    public void setProgress(@NotNull PlacedGenerator generator, int ticks) {
+        scheduler.cancel(generator);
+        generator.setCurrentTick(ticks);
+        reschedule(generator);
+    }
+
+    public GeneratorScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public PlayerGrid getPlayerGrid() {
+        return playerGrid;
+    }
+
+    private void scheduleIfEligible(PlacedGenerator generator) {
+        if (generator == waking) return;
+        if (scheduler.isScheduled(generator)) {
+            generator.setCurrentTick(currentProgress(generator));
+            scheduler.cancel(generator);
+        }
 
         GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
-        if (type == null) return;
+        if (type != null && isSchedulable(generator, type)) {
+            scheduleNext(generator, type);
+        }
+    }
 
+    /**
+     * Polled generators depend on players and can't be given a deadline up front.
+     */
+    private boolean isPolled(GeneratorType type) {
+        return type.isRequireNearbyPlayer() || plugin.getConfigManager().isOnlyWorkWhenOwnerOnline();
+    }
+
+    private boolean canWork(PlacedGenerator generator, GeneratorType type) {
+        if (generator.isBroken() || isStorageFull(generator)) return false;
         // Если рудник требует ремонта и не отремонтирован - не работает
-        if (type.isRepairRequired() && !generator.isMineRepaired()) {
+        return !type.isRepairRequired() || generator.isMineRepaired();
+    }
+
+    private boolean isSchedulable(PlacedGenerator generator, GeneratorType type) {
+        if (!canWork(generator, type) || isPolled(type)) return false;
+        // Пока не досчитан догон, таймер не запускаем
+        return generator.isChunkLoaded() && generator.getLastEvaluated() == 0;
+    }
+
+    private boolean runCatchUps(long deadlineNanos) {
+        int done = 0;
+        while (done < pendingCatchUp.size()) {
+            catchUp(pendingCatchUp.get(done++));
+            if (System.nanoTime() - deadlineNanos >= 0) break;
+        }
+        pendingCatchUp.subList(0, done).clear();
+        return pendingCatchUp.isEmpty();
+    }
+
+    /**
+     * Credits production for the time the generator's chunk was unloaded:
+     * whole cycles, drops and breakage are sampled in one go with the same
+     * distribution as ticking through them one by one.
+     */
+    private void catchUp(PlacedGenerator generator) {
+        long since = generator.getLastEvaluated();
+        if (since <= 0 || !generator.isRegistered() || !generator.isChunkLoaded()) return;
+        generator.setLastEvaluated(0);
+
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        Location location = generator.getLocation();
+        if (type != null && location != null && canWork(generator, type) && !isPolled(type)) {
+            long elapsedMs = Math.min(System.currentTimeMillis() - since,
+                    plugin.getConfigManager().getOfflineCatchUpMaxMillis());
+            int delay = Math.max(1, getAdjustedDelay(type, generator));
+            long progress = generator.getCurrentTick() + Math.max(0, elapsedMs) / 50;
+            long cycles = progress / delay;
+
+            if (cycles > 0) {
+                produceOffline(generator, type, location, cycles, progress - cycles * delay);
+            } else {
+                generator.setCurrentTick((int) progress);
+            }
+        }
+        scheduleIfEligible(generator);
+    }
+
+    private void produceOffline(PlacedGenerator generator, GeneratorType type, Location location,
+                                long cycles, long remainder) {
+        // Номер цикла, на котором генератор сломается (геометрическое распределение)
+        long performed = cycles;
+        boolean broke = false;
+        if (type.canBreak()) {
+            long breakCycle = Utils.sampleGeometric(RANDOM, type.getBreakChance() / 100.0);
+            if (breakCycle <= cycles) {
+                performed = breakCycle;
+                broke = true;
+            }
+        }
+
+        Location dropLoc = location.clone().add(0.5, 1.2, 0.5);
+        UpgradeLevel upgradeLevel = getUpgradeLevel(generator);
+        List<GeneratorDrop> drops = type.getDrops();
+        for (int i = 0; i < drops.size(); i++) {
+            GeneratorDrop drop = drops.get(i);
+            double chance = drop.getChance();
+            int amount = drop.getAmount();
+
+            if (upgradeLevel != null) {
+                chance *= upgradeLevel.getDropChanceMultiplier();
+                amount = (int) (amount * upgradeLevel.getDropAmountMultiplier());
+            }
+
+            long hits = Utils.sampleBinomial(RANDOM, performed, chance / 100.0);
+            if (hits == 0) continue;
+
+            deliver(generator, type, i, drop, dropLoc, hits * Math.max(1, amount));
+            generator.setTotalGenerated(generator.getTotalGenerated() + hits);
+        }
+        journal(generator, GeneratorJournal.Op.PROGRESS);
+
+        plugin.getEffectDispatcher().particle(Particle.FLAME, dropLoc, 10, 0.3, 0.3, 0.3, 0.01);
+
+        if (broke) {
+            generator.resetTick();
+            markBroken(generator, type, location, dropLoc);
+        } else {
+            generator.setCurrentTick((int) remainder);
+        }
+    }
+
+
+    private int currentProgress(PlacedGenerator generator) {
+        long left = Math.max(0, generator.getNextFireTick() - scheduler.getClock());
+        return (int) Math.max(0, generator.getScheduledDelay() - left);
+    }
+
+    private void scheduleNext(PlacedGenerator generator, GeneratorType type) {
+        long clock = scheduler.getClock();
+        int delay = getAdjustedDelay(type, generator);
+        long fireTick = clock + Math.max(1, delay - generator.getCurrentTick());
+        generator.setScheduledDelay(delay);
+        generator.setNextFireTick(fireTick);
+
+        long wakeTick = fireTick;
+        if (generator.hasAilment()) {
+            // Болезни не накладываются: время события выберем заново после излечения
+            generator.setNextEventTick(0);
+        } else {
+            if (generator.getNextEventTick() <= clock) {
+                generator.setNextEventTick(clock + plugin.getEventManager().rollNextEventDelay());
+            }
+            wakeTick = Math.min(wakeTick, generator.getNextEventTick());
+        }
+        scheduler.schedule(generator, wakeTick);
+    }
+
+    /**
+     * Called by the scheduler when a generator's fire or event tick is reached.
+     */
+    private void wake(PlacedGenerator generator) {
+        generator.setCurrentTick(currentProgress(generator));
+
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        if (type == null || !isSchedulable(generator, type)) return;
+
+        Location location = generator.getLocation();
+        if (location == null) return;
+
+        waking = generator;
+        try {
+            // Случайное событие (болезнь, перегруз и т.д.) по заранее выбранному времени
+            if (!generator.hasAilment() && generator.getNextEventTick() <= scheduler.getClock()) {
+                plugin.getEventManager().triggerRandomEvent(generator, location);
+                generator.setNextEventTick(0);
+            }
+
+            if (generator.getCurrentTick() >= getAdjustedDelay(type, generator)) {
+                generate(generator, type);
+                generator.resetTick();
+            }
+        } finally {
+            waking = null;
+        }
+
+        if (isSchedulable(generator, type)) {
+            scheduleNext(generator, type);
+        }
+    }
+
+    /**
+     * Once-per-second work for a generator: scheduled ones only refresh their
+     * countdown, generators gated on players are still polled the old way.
+     */
+    public void tickLoaded(@NotNull PlacedGenerator generator) {
+        if (!generator.isRegistered()) return;  // убран, пока шёл проход
+        if (scheduler.isScheduled(generator)) {
+            GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+            if (type != null) plugin.getHologramManager().tickHologram(generator, type);
+        } else {
+            tickGenerator(generator);
+        }
+    }
+
+    public GeneratorBuckets getBuckets() {
+        return buckets;
+    }
+
+    private void tickGenerator(PlacedGenerator generator) {
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        if (type == null || !canWork(generator, type)) return;
+
+        // Снова рабочий, но ещё не в очереди (например, после ремонта) - ставим в очередь
+        if (!isPolled(type)) {
+            scheduleIfEligible(generator);
             return;
         }
 
@@ -379,28 +730,18 @@ public class GeneratorManager {
         // Проверяем случайные события (болезни, перегруз и т.д.)
         plugin.getEventManager().checkRandomEvents(generator, location);
 
-        if (plugin.getConfigManager().isOnlyWorkInLoadedChunks()) {
-            if (!location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) return;
-        }
-
         if (plugin.getConfigManager().isOnlyWorkWhenOwnerOnline()) {
             if (Bukkit.getPlayer(generator.getOwnerUUID()) == null) return;
         }
 
-        if (type.isRequireNearbyPlayer()) {
-            boolean hasNearby = false;
-            for (Player p : location.getWorld().getPlayers()) {
-                if (p.getLocation().distance(location) <= type.getNearbyRadius()) {
-                    hasNearby = true;
-                    break;
-                }
-            }
-            if (!hasNearby) return;
+        if (type.isRequireNearbyPlayer() && !playerGrid.hasPlayerNear(generator.getWorldName(),
+                generator.getX(), generator.getY(), generator.getZ(), type.getNearbyRadius())) {
+            return;
         }
 
         int delay = getAdjustedDelay(type, generator);
         generator.tick(20);
-        plugin.getHologramManager().updateHologram(generator, type);
+        plugin.getHologramManager().tickHologram(generator, type);
 
         if (generator.getCurrentTick() >= delay) {
             generate(generator, type);
@@ -430,12 +771,11 @@ public class GeneratorManager {
         if (location == null) return;
 
         Location dropLoc = location.clone().add(0.5, 1.2, 0.5);
-        GeneratorUpgrade upgrade = plugin.getConfigManager().getGeneratorUpgrade(generator.getTypeId());
-        UpgradeLevel upgradeLevel = (upgrade != null && upgrade.isEnabled())
-            ? upgrade.getLevel(generator.getUpgradeLevel())
-            : null;
+        UpgradeLevel upgradeLevel = getUpgradeLevel(generator);
 
-        for (GeneratorDrop drop : type.getDrops()) {
+        List<GeneratorDrop> drops = type.getDrops();
+        for (int i = 0; i < drops.size(); i++) {
+            GeneratorDrop drop = drops.get(i);
             double chance = drop.getChance();
             int amount = drop.getAmount();
 
@@ -445,29 +785,185 @@ public class GeneratorManager {
             }
 
             if (RANDOM.nextDouble() * 100 < chance) {
-                ItemStack item = drop.createItem();
-                item.setAmount(Math.max(1, amount));
-                location.getWorld().dropItem(dropLoc, item);
+                deliver(generator, type, i, drop, dropLoc, Math.max(1, amount));
                 generator.incrementGenerated();
             }
         }
+        journal(generator, GeneratorJournal.Op.PROGRESS);
 
-        location.getWorld().spawnParticle(Particle.FLAME, dropLoc, 10, 0.3, 0.3, 0.3, 0.01);
-        location.getWorld().playSound(location, Sound.BLOCK_BEACON_AMBIENT, 0.5f, 1.5f);
+        plugin.getEffectDispatcher().particle(Particle.FLAME, dropLoc, 10, 0.3, 0.3, 0.3, 0.01);
+        plugin.getEffectDispatcher().sound(location, Sound.BLOCK_BEACON_AMBIENT, 0.5f, 1.5f);
 
         // Система поломок
         if (type.canBreak() && RANDOM.nextDouble() * 100 < type.getBreakChance()) {
-            generator.setBroken(true);
-            location.getWorld().spawnParticle(Particle.SMOKE_LARGE, dropLoc, 20, 0.3, 0.3, 0.3, 0.05);
-            location.getWorld().playSound(location, Sound.ENTITY_ITEM_BREAK, 1f, 0.5f);
+            markBroken(generator, type, location, dropLoc);
+        }
+    }
+
+    /**
+     * Hands produced items over: into the generator's storage when enabled
+     * (extra above capacity is lost), otherwise queued to drop at the end of the tick.
+     */
+    private void deliver(PlacedGenerator generator, GeneratorType type, int dropIndex, GeneratorDrop drop,
+                         Location dropLoc, long amount) {
+        if (plugin.getConfigManager().isStorageEnabled()) {
+            long free = plugin.getConfigManager().getStorageCapacity() - generator.getStoredTotal();
+            if (free > 0) {
+                generator.setStored(dropIndex, generator.getStored(dropIndex) + Math.min(free, amount));
+                // Заполнилось: генератор встаёт, и тики голограмму больше не обновят
+                if (amount >= free) plugin.getHologramManager().updateHologram(generator, type);
+            }
+            return;
+        }
+        dropCoalescer.add(drop.createItem(), dropLoc, amount);
+    }
+
+    /**
+     * Spawns drops collected during this tick, merged per chunk and item.
+     */
+    public void flushDrops() {
+        dropCoalescer.flush();
+    }
+
+    private void dropStacks(ItemStack item, Location location, long amount) {
+        int stackSize = Math.max(1, item.getMaxStackSize());
+        while (amount > 0) {
+            ItemStack stack = item.clone();
+            stack.setAmount((int) Math.min(stackSize, amount));
+            location.getWorld().dropItem(location, stack);
+            amount -= stack.getAmount();
+        }
+    }
+
+    public boolean isStorageFull(@NotNull PlacedGenerator generator) {
+        return plugin.getConfigManager().isStorageEnabled()
+                && generator.getStoredTotal() >= plugin.getConfigManager().getStorageCapacity();
+    }
+
+    /**
+     * Moves stored items into the player's inventory; what doesn't fit stays stored.
+     *
+     * @return number of items moved
+     */
+    public long collectStorage(@NotNull Player player, @NotNull PlacedGenerator generator) {
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        if (type == null || generator.getStoredTotal() == 0) return 0;
+
+        long collected = 0;
+        List<GeneratorDrop> drops = type.getDrops();
+        for (int i = 0; i < generator.getStorageSlots() && i < drops.size(); i++) {
+            long stored = generator.getStored(i);
+            if (stored == 0) continue;
+
+            ItemStack item = drops.get(i).createItem();
+            int stackSize = Math.max(1, item.getMaxStackSize());
+            while (stored > 0) {
+                ItemStack stack = item.clone();
+                int amount = (int) Math.min(stackSize, stored);
+                stack.setAmount(amount);
+                int left = 0;
+                for (ItemStack rest : player.getInventory().addItem(stack).values()) left += rest.getAmount();
+                stored -= amount - left;
+                collected += amount - left;
+                if (left > 0) break;  // инвентарь полон
+            }
+            generator.setStored(i, stored);
+        }
+
+        if (collected > 0) {
+            journal(generator, GeneratorJournal.Op.PROGRESS);
+            reschedule(generator);  // мог стоять из-за полного хранилища
             plugin.getHologramManager().updateHologram(generator, type);
+        }
+        return collected;
+    }
 
-            // Уведомить владельца если онлайн
-            Player owner = Bukkit.getPlayer(generator.getOwnerUUID());
-            if (owner != null) {
-                owner.sendMessage(color("&c[Завод] Ваш генератор сломался! Координаты: " +
-                        location.getBlockX() + ", " + location.getBlockY() + ", " + location.getBlockZ()));
+    /**
+     * Moves the storage of an upgraded generator into its replacement. Items the
+     * new type doesn't produce, and whatever doesn't fit its capacity, are dropped
+     * into the world.
+     */
+    private void transferStorage(PlacedGenerator from, GeneratorType fromType,
+                                 PlacedGenerator to, GeneratorType toType, Location location) {
+        long capacity = plugin.getConfigManager().getStorageCapacity();
+        List<GeneratorDrop> fromDrops = fromType.getDrops();
+        for (int i = 0; i < from.getStorageSlots() && i < fromDrops.size(); i++) {
+            long stored = from.getStored(i);
+            if (stored == 0) continue;
+            int target = findDropIndex(toType, fromDrops.get(i).getMaterial());
+            long moved = target < 0 ? 0 : Math.min(stored, Math.max(0, capacity - to.getStoredTotal()));
+            if (moved > 0) {
+                to.setStored(target, to.getStored(target) + moved);
+            }
+            if (stored > moved) {
+                dropStacks(fromDrops.get(i).createItem(), location.clone().add(0.5, 1.2, 0.5), stored - moved);
             }
+            from.setStored(i, 0);
+        }
+    }
+
+    /**
+     * Index of the first drop of the given material, or -1.
+     */
+    public static int findDropIndex(@NotNull GeneratorType type, @NotNull Material material) {
+        List<GeneratorDrop> drops = type.getDrops();
+        for (int i = 0; i < drops.size(); i++) {
+            if (drops.get(i).getMaterial() == material) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a stored amount saved under a material name (storage is saved by
+     * material, kept in memory by drop index); unknown materials are ignored.
+     */
+    public static void addStored(@NotNull PlacedGenerator generator, @NotNull GeneratorType type,
+                                 @NotNull String materialName, long amount) {
+        Material material = Material.matchMaterial(materialName);
+        int index = material == null ? -1 : findDropIndex(type, material);
+        if (index >= 0) {
+            generator.setStored(index, generator.getStored(index) + amount);
+        }
+    }
+
+    /**
+     * Number of storage slots that map to a drop of the type (0 if nothing is stored).
+     */
+    public static int storedSlots(@NotNull PlacedGenerator generator, @Nullable GeneratorType type) {
+        if (type == null || generator.getStoredTotal() == 0) return 0;
+        return Math.min(generator.getStorageSlots(), type.getDrops().size());
+    }
+
+    private void dropStorage(PlacedGenerator generator, GeneratorType type, Location location) {
+        if (generator.getStoredTotal() == 0) return;
+        Location dropLoc = location.clone().add(0.5, 0.5, 0.5);
+        List<GeneratorDrop> drops = type.getDrops();
+        for (int i = 0; i < generator.getStorageSlots() && i < drops.size(); i++) {
+            long stored = generator.getStored(i);
+            if (stored > 0) dropStacks(drops.get(i).createItem(), dropLoc, stored);
+            generator.setStored(i, 0);
+        }
+    }
+
+    private UpgradeLevel getUpgradeLevel(PlacedGenerator generator) {
+        GeneratorUpgrade upgrade = plugin.getConfigManager().getGeneratorUpgrade(generator.getTypeId());
+        return (upgrade != null && upgrade.isEnabled())
+            ? upgrade.getLevel(generator.getUpgradeLevel())
+            : null;
+    }
+
+    private void markBroken(PlacedGenerator generator, GeneratorType type, Location location, Location dropLoc) {
+        generator.setBroken(true);
+        journal(generator, GeneratorJournal.Op.AILMENT);
+        plugin.getEffectDispatcher().particle(Particle.SMOKE_LARGE, dropLoc, 20, 0.3, 0.3, 0.3, 0.05);
+        plugin.getEffectDispatcher().sound(location, Sound.ENTITY_ITEM_BREAK, 1f, 0.5f);
+        plugin.getHologramManager().updateHologram(generator, type);
+
+        // Уведомить владельца если онлайн
+        Player owner = Bukkit.getPlayer(generator.getOwnerUUID());
+        if (owner != null) {
+            owner.sendMessage(color("&c[Завод] Ваш генератор сломался! Координаты: " +
+                    location.getBlockX() + ", " + location.getBlockY() + ", " + location.getBlockZ()));
         }
     }
 
@@ -492,19 +988,82 @@ public class GeneratorManager {
     }
 
     public int countPlayerGenerators(UUID uuid) {
-        int count = 0;
-        for (PlacedGenerator g : placedGenerators.values()) {
-            if (g.getOwnerUUID().equals(uuid)) count++;
+        List<PlacedGenerator> owned = playerGenerators.get(uuid);
+        return owned == null ? 0 : owned.size();
+    }
+
+    /**
+     * Walks the generators owned by the player; the action must not change
+     * owners or register/unregister generators.
+     */
+    public void forEachOwnedGenerator(@NotNull UUID uuid, @NotNull Consumer<PlacedGenerator> action) {
+        List<PlacedGenerator> owned = playerGenerators.get(uuid);
+        if (owned == null) return;
+        for (int i = 0; i < owned.size(); i++) {
+            action.accept(owned.get(i));
         }
-        return count;
+    }
+
+    /**
+     * Changes the owner of a generator. Registered generators are re-indexed
+     * (and the change journaled) by their owner listener.
+     */
+    public void setOwner(@NotNull PlacedGenerator generator, @NotNull UUID owner) {
+        generator.setOwnerUUID(owner);
+    }
+
+    private void journal(PlacedGenerator generator, GeneratorJournal.Op op) {
+        plugin.getDataManager().journal(generator, op);
+    }
+
+    private void indexOwner(PlacedGenerator generator) {
+        if (!generator.hasOwner()) return;  // неактивированный рудник никому не принадлежит
+        List<PlacedGenerator> owned = playerGenerators.computeIfAbsent(generator.getOwnerUUID(), k -> new ArrayList<>());
+        generator.setOwnerIndex(owned.size());
+        owned.add(generator);
+    }
+
+    private void unindexOwner(PlacedGenerator generator) {
+        unindexOwner(generator, generator.getOwnerUUID());
+    }
+
+    // Swap-remove by the stored position keeps removal O(1)
+    private void unindexOwner(PlacedGenerator generator, UUID owner) {
+        int index = generator.getOwnerIndex();
+        if (index < 0) return;
+        generator.setOwnerIndex(-1);
+
+        List<PlacedGenerator> owned = playerGenerators.get(owner);
+        if (owned == null) return;
+        PlacedGenerator last = owned.remove(owned.size() - 1);
+        if (last != generator) {
+            owned.set(index, last);
+            last.setOwnerIndex(index);
+        }
+        if (owned.isEmpty()) playerGenerators.remove(owner);
     }
 
     public PlacedGenerator getGeneratorAt(Location location) {
-        return placedGenerators.get(PlacedGenerator.createLocationKey(location));
+        return placedGenerators.get(location);
+    }
+
+    /**
+     * Walks every placed generator; the action must not register or unregister generators.
+     */
+    public void forEachGenerator(@NotNull Consumer<PlacedGenerator> action) {
+        buckets.forEach(action);
+    }
+
+    /**
+     * Walks the placed generators of a world's chunks within the bounds (inclusive).
+     */
+    public void forEachInChunks(@NotNull String worldName, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                @NotNull Consumer<PlacedGenerator> action) {
+        buckets.forEachInChunks(worldName, minChunkX, minChunkZ, maxChunkX, maxChunkZ, action);
     }
 
-    public Map<String, PlacedGenerator> getPlacedGenerators() {
-        return placedGenerators;
+    public int getGeneratorCount() {
+        return placedGenerators.size();
     }
 
     public Map<String, GeneratorType> getGeneratorTypes() {
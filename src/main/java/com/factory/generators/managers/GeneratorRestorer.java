@@ -0,0 +1,125 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.IronFactory;
+import com.factory.generators.models.GeneratorType;
+import com.factory.generators.models.PlacedGenerator;
+import com.factory.generators.utils.LongObjectMap;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Puts loaded generators back into the world (block and hologram) chunk by
+ * chunk instead of one scheduled task per generator. Chunks that are loaded
+ * when the data is read are restored in batches of a few hundred generators
+ * per tick; the rest wait until their chunk loads, so no chunk is loaded just
+ * to restore it.
+ */
+public class GeneratorRestorer {
+
+    private final IronFactory plugin;
+    // Ждут загрузки своего чанка: мир -> чанк -> генераторы
+    private final Map<String, LongObjectMap<List<PlacedGenerator>>> waiting = new HashMap<>();
+    // Чанки уже загружены - восстанавливаются пачками по тикам
+    private final ArrayDeque<PlacedGenerator> ready = new ArrayDeque<>();
+    private BukkitTask task;
+    private int waitingCount;
+
+    public GeneratorRestorer(IronFactory plugin) {
+        this.plugin = plugin;
+    }
+
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    /**
+     * Drops everything not restored yet (before a reload).
+     */
+    public void clear() {
+        waiting.clear();
+        ready.clear();
+        waitingCount = 0;
+    }
+
+    /**
+     * Queues a freshly loaded generator; call {@link #start()} once all are added.
+     * The generator must already be registered, so its chunk state is known.
+     */
+    public void add(@NotNull PlacedGenerator generator) {
+        if (generator.isChunkLoaded()) {
+            ready.add(generator);
+            return;
+        }
+        LongObjectMap<List<PlacedGenerator>> chunks = waiting.computeIfAbsent(generator.getWorldName(), k -> new LongObjectMap<>());
+        long chunk = GeneratorBuckets.chunkKey(generator.getX() >> 4, generator.getZ() >> 4);
+        List<PlacedGenerator> generators = chunks.get(chunk);
+        if (generators == null) {
+            generators = new ArrayList<>();
+            chunks.put(chunk, generators);
+        }
+        generators.add(generator);
+        waitingCount++;
+    }
+
+    /**
+     * Starts working off the generators of already loaded chunks, a batch per tick.
+     */
+    public void start() {
+        if (!ready.isEmpty() && task == null) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::restoreBatch, 1L, 1L);
+        }
+    }
+
+    /**
+     * Restores the generators waiting for this chunk right away.
+     */
+    public void onChunkLoad(@NotNull String worldName, int chunkX, int chunkZ) {
+        LongObjectMap<List<PlacedGenerator>> chunks = waiting.get(worldName);
+        if (chunks == null) return;
+        List<PlacedGenerator> generators = chunks.remove(GeneratorBuckets.chunkKey(chunkX, chunkZ));
+        if (generators == null) return;
+        if (chunks.isEmpty()) waiting.remove(worldName);
+
+        waitingCount -= generators.size();
+        for (PlacedGenerator generator : generators) {
+            restore(generator);
+        }
+    }
+
+    private void restoreBatch() {
+        int limit = plugin.getConfigManager().getRestorePerTick();
+        for (int i = 0; i < limit && !ready.isEmpty(); i++) {
+            PlacedGenerator generator = ready.poll();
+            if (generator.isChunkLoaded()) {
+                restore(generator);
+            } else {
+                add(generator);  // чанк успел выгрузиться - ждём следующей загрузки
+            }
+        }
+
+        if (ready.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void restore(PlacedGenerator generator) {
+        if (!generator.isRegistered()) return;  // сломан или заменён, пока ждал
+
+        GeneratorType type = plugin.getConfigManager().getGeneratorType(generator.getTypeId());
+        Location location = generator.getLocation();
+        if (type == null || location == null) return;
+
+        Block block = location.getBlock();
+        if (block.getType() != type.getBlockMaterial()) block.setType(type.getBlockMaterial());
+        plugin.getHologramManager().createHologram(generator, type);
+    }
+}
@@ -0,0 +1,129 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.models.PlacedGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Deadline scheduler for generator production.
+ * Intrusive binary min-heap ordered by {@link PlacedGenerator#getWakeTick()}:
+ * each generator stores its own heap index, so reschedule and cancel are O(log n)
+ * and a clock advance only touches generators that are actually due.
+ */
+public class GeneratorScheduler {
+
+    private PlacedGenerator[] heap = new PlacedGenerator[256];
+    private int size;
+    private long clock;
+
+    /**
+     * Current scheduler time in server ticks.
+     */
+    public long getClock() {
+        return clock;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isScheduled(@NotNull PlacedGenerator generator) {
+        return generator.getHeapIndex() >= 0;
+    }
+
+    /**
+     * Inserts the generator or moves it to a new wake tick.
+     */
+    public void schedule(@NotNull PlacedGenerator generator, long wakeTick) {
+        int index = generator.getHeapIndex();
+        generator.setWakeTick(wakeTick);
+        if (index < 0) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            heap[size] = generator;
+            generator.setHeapIndex(size);
+            siftUp(size++);
+        } else {
+            siftUp(index);
+            siftDown(generator.getHeapIndex());
+        }
+    }
+
+    public void cancel(@NotNull PlacedGenerator generator) {
+        int index = generator.getHeapIndex();
+        if (index < 0) return;
+        removeAt(index);
+    }
+
+    public void advance(int ticks) {
+        clock += ticks;
+    }
+
+    /**
+     * Hands generators whose wake tick has passed to {@code onDue} until the heap has
+     * nothing due or the deadline passes; leftovers stay due for the next call.
+     * Due generators are removed from the heap before the callback runs.
+     *
+     * @return true if nothing due is left
+     */
+    public boolean runDue(@NotNull Consumer<PlacedGenerator> onDue, long deadlineNanos) {
+        while (size > 0 && heap[0].getWakeTick() <= clock) {
+            PlacedGenerator due = heap[0];
+            removeAt(0);
+            onDue.accept(due);
+            if (System.nanoTime() - deadlineNanos >= 0) break;
+        }
+        return size == 0 || heap[0].getWakeTick() > clock;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].setHeapIndex(-1);
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    private void removeAt(int index) {
+        PlacedGenerator removed = heap[index];
+        PlacedGenerator last = heap[--size];
+        heap[size] = null;
+        removed.setHeapIndex(-1);
+        if (index == size) return;
+
+        heap[index] = last;
+        last.setHeapIndex(index);
+        siftUp(index);
+        siftDown(last.getHeapIndex());
+    }
+
+    private void siftUp(int index) {
+        PlacedGenerator node = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].getWakeTick() <= node.getWakeTick()) break;
+            heap[index] = heap[parent];
+            heap[index].setHeapIndex(index);
+            index = parent;
+        }
+        heap[index] = node;
+        node.setHeapIndex(index);
+    }
+
+    private void siftDown(int index) {
+        PlacedGenerator node = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].getWakeTick() < heap[child].getWakeTick()) child = right;
+            if (node.getWakeTick() <= heap[child].getWakeTick()) break;
+            heap[index] = heap[child];
+            heap[index].setHeapIndex(index);
+            index = child;
+        }
+        heap[index] = node;
+        node.setHeapIndex(index);
+    }
+}
@@ -0,0 +1,69 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.models.PlacedGenerator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Consumer;
+
+/**
+ * Where placed generators are persisted: region files on disk or a SQL table.
+ * All calls come from the main thread; implementations do the actual I/O on
+ * their own thread and report back through {@code onDurable}.
+ */
+public interface GeneratorStorage {
+
+    /**
+     * Whether there is anything stored yet (an empty storage is filled from the old formats).
+     */
+    boolean exists();
+
+    /**
+     * Reads every stored generator, pushing last-evaluated forward by the server downtime.
+     *
+     * @return number of generators read
+     */
+    int load(@NotNull Consumer<PlacedGenerator> reader, long downtime);
+
+    /**
+     * Queues the generators marked dirty (or all registered ones) and the
+     * removals since the last save. {@code onDurable} runs on the storage
+     * thread once everything queued so far has been written; it is not run if
+     * a write failed.
+     *
+     * @return number of units queued (regions or rows)
+     */
+    int save(boolean all, @Nullable Runnable onDurable);
+
+    /**
+     * Notes that a registered generator changed since it was last saved.
+     */
+    void markDirty(@NotNull PlacedGenerator generator);
+
+    /**
+     * Notes a change to a registered generator (the same events that go to the
+     * journal). Storages that write between saves queue it; the default ignores it.
+     */
+    default void changed(@NotNull PlacedGenerator generator, @NotNull GeneratorJournal.Op op) {
+    }
+
+    /**
+     * Notes that a generator was removed; it disappears from storage on the next save.
+     */
+    void markRemoved(@NotNull PlacedGenerator generator);
+
+    /**
+     * Waits for queued writes to finish. A finished write may still have
+     * failed - only {@code onDurable} of a save says it reached storage.
+     *
+     * @return false on timeout
+     */
+    boolean flush(long timeoutMillis);
+
+    /**
+     * Finishes queued writes and releases the storage (on shutdown).
+     *
+     * @return false on timeout
+     */
+    boolean close(long timeoutMillis);
+}
@@ -0,0 +1,28 @@
+package com.factory.generators.managers;
+
+import org.bukkit.entity.Entity;
+
+import java.util.List;
+
+/**
+ * One floating multi-line label. How it is rendered depends on the {@link HologramBackend}.
+ */
+public interface Hologram {
+
+    /**
+     * Replaces the displayed lines (already colored). Lines equal to what is
+     * already shown are not sent again.
+     *
+     * @return number of changed lines; 0 means the entity was not touched
+     */
+    int setLines(List<String> lines);
+
+    void remove();
+
+    /**
+     * Whether the entity is part of this hologram.
+     */
+    boolean contains(Entity entity);
+
+    boolean isValid();
+}
@@ -0,0 +1,96 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.IronFactory;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How holograms are rendered, chosen by {@code hologram.backend} in config.yml.
+ */
+public enum HologramBackend {
+
+    /** One TextDisplay entity per hologram, lines joined with line breaks. */
+    TEXT_DISPLAY {
+        @Override
+        public Hologram spawn(@NotNull Location top, @NotNull List<String> lines, @NotNull String tag) {
+            return TextDisplayHologram.spawn(top, lines, tag);
+        }
+
+        @Override
+        public Hologram attach(@NotNull Entity entity, @NotNull List<String> lines) {
+            return entity instanceof TextDisplay ? TextDisplayHologram.attach((TextDisplay) entity, lines) : null;
+        }
+    },
+
+    /** Legacy: one invisible marker ArmorStand per line. */
+    ARMOR_STAND {
+        @Override
+        public Hologram spawn(@NotNull Location top, @NotNull List<String> lines, @NotNull String tag) {
+            return ArmorStandHologram.spawn(top, lines, tag);
+        }
+
+        @Override
+        public Hologram attach(@NotNull Entity entity, @NotNull List<String> lines) {
+            return null;  // стопку стоек не собрать обратно надёжно - пересоздаём
+        }
+    };
+
+    /** Vertical distance between lines, in blocks. */
+    public static final double LINE_HEIGHT = 0.25;
+
+    private static NamespacedKey tagKey;
+
+    /**
+     * Spawns a hologram whose first line is at {@code top}; its entities are
+     * tagged with {@code tag} so they can be found again after a restart.
+     *
+     * @return the hologram, or null if nothing could be spawned
+     */
+    @Nullable
+    public abstract Hologram spawn(@NotNull Location top, @NotNull List<String> lines, @NotNull String tag);
+
+    /**
+     * Reuses a tagged entity left in the world (e.g. after a crash).
+     *
+     * @return the hologram, or null if this backend can't reuse the entity
+     */
+    @Nullable
+    public abstract Hologram attach(@NotNull Entity entity, @NotNull List<String> lines);
+
+    static void tag(@NotNull Entity entity, @NotNull String tag) {
+        entity.getPersistentDataContainer().set(getTagKey(), PersistentDataType.STRING, tag);
+    }
+
+    /**
+     * @return the hologram key an entity was tagged with, or null if it isn't a hologram entity
+     */
+    @Nullable
+    public static String getTag(@NotNull Entity entity) {
+        return entity.getPersistentDataContainer().get(getTagKey(), PersistentDataType.STRING);
+    }
+
+    private static NamespacedKey getTagKey() {
+        if (tagKey == null) {
+            tagKey = new NamespacedKey(IronFactory.getInstance(), "hologram");
+        }
+        return tagKey;
+    }
+
+    @NotNull
+    public static HologramBackend fromName(String name, @NotNull HologramBackend fallback) {
+        if (name == null) return fallback;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -4,24 +4,120 @@ import com.factory.generators.IronFactory;
 import com.factory.generators.models.GeneratorType;
 import com.factory.generators.models.MultiBlockStructure;
 import com.factory.generators.models.PlacedGenerator;
+import com.factory.generators.utils.BlockMap;
+import com.factory.generators.utils.HologramTemplate;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.entity.ArmorStand;
-import org.bukkit.entity.EntityType;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
+/**
+ * Generator and drill rig holograms.
+ * Every hologram lives as a virtual view (position + how to render it); the
+ * entity is spawned only while some player is within view distance of its chunk
+ * and despawned again when the chunk unloads or nobody is around.
+ * Periodic refreshes are tiered by the nearest player's distance: every second
+ * up close, every few seconds at mid range, frozen further out.
+ */
+public class HologramManager {
 
+    private static final List<HologramTemplate> MULTIBLOCK_TEMPLATES = HologramTemplate.compileAll(
+            Arrays.asList("&8&l⛽ &7Буровая", "&aРаботает", "&7%time%"), null);
 
-public class HologramManager {
+    private static final String GENERATOR_TAG = "g:";
+    private static final String RIG_TAG = "r:";
 
     private final IronFactory plugin;
-    private final Map<String, List<ArmorStand>> holograms;
-    private final Map<String, List<ArmorStand>> multiBlockHolograms;
+    private final BlockMap<HologramView> holograms;
+    private final Map<String, HologramView> multiBlockHolograms;
+    // Все виды по чанкам - для прохода видимости и выгрузки чанков
+    private final Map<String, Map<Long, List<HologramView>>> viewsByChunk;
+    private List<HologramView> spawned;
+    private int visibilityPass;
+    private final StringBuilder lineBuffer = new StringBuilder(64);
+
+    // Статистика обновлений: сколько запросов пришло и сколько не трогало сущности
+    private long updateCount;
+    private long skippedUpdates;
+    private long changedLines;
+    private long culledUpdates;
+    private long throttledUpdates;
+    private long reattached;
+    private long purged;
+
+    /**
+     * Virtual hologram: survives despawn, the entity is recreated from it.
+     */
+    private abstract static class HologramView {
+        final Location top;
+        final String worldName;
+        final int chunkX;
+        final int chunkZ;
+        final String tag;  // ключ в PDC сущностей - чтобы найти их после рестарта
+        Hologram entity;
+        int seenPass;
+        boolean listed;  // уже в списке spawned
+        int nearestChunk;  // до ближайшего игрока, в чанках (за последний проход)
+        int refreshInterval = 1;  // секунд между периодическими обновлениями, 0 - заморожена
+        int refreshCountdown;
+
+        HologramView(Location top, String tag) {
+            this.top = top;
+            this.tag = tag;
+            this.worldName = top.getWorld().getName();
+            this.chunkX = top.getBlockX() >> 4;
+            this.chunkZ = top.getBlockZ() >> 4;
+        }
+
+        abstract List<String> render();
+    }
+
+    private final class GeneratorView extends HologramView {
+        final PlacedGenerator generator;
+        final GeneratorType type;
+
+        GeneratorView(Location top, PlacedGenerator generator, GeneratorType type) {
+            super(top, GENERATOR_TAG + generator.getWorldName() + ":" + generator.getBlockKey());
+            this.generator = generator;
+            this.type = type;
+        }
+
+        @Override
+        List<String> render() {
+            return renderLines(generator, type);
+        }
+    }
+
+    private final class RigView extends HologramView {
+        final MultiBlockStructure structure;
+        int delay = 1200;
+
+        RigView(Location top, MultiBlockStructure structure) {
+            super(top, RIG_TAG + structure.getStructureKey());
+            this.structure = structure;
+        }
+
+        @Override
+        List<String> render() {
+            return renderMultiLines(structure, delay);
+        }
+    }
 
     public HologramManager(IronFactory plugin) {
         this.plugin = plugin;
-        this.holograms = new HashMap<>();
+        this.holograms = new BlockMap<>();
         this.multiBlockHolograms = new HashMap<>();
+        this.viewsByChunk = new HashMap<>();
+        this.spawned = new ArrayList<>();
+    }
+
+    private HologramBackend backend() {
+        return plugin.getConfigManager().getHologramBackend();
     }
 
     public void createHologram(PlacedGenerator generator, GeneratorType type) {
@@ -29,180 +125,360 @@ public class HologramManager {
         Location location = generator.getLocation();
         if (location == null || location.getWorld() == null) return;
 
-        String key = generator.getLocationKey();
         removeHologram(generator);
 
-        List<ArmorStand> stands = new ArrayList<>();
         Location holoLoc = location.clone().add(0.5, type.getHologramHeight(), 0.5);
+        GeneratorView view = new GeneratorView(holoLoc, generator, type);
+        holograms.put(generator.getWorldName(), generator.getBlockKey(), view);
+        addView(view);
+    }
 
-        for (String line : type.getHologramLines()) {
-            String parsed = parseLine(line, generator, type);
-            try {
-                ArmorStand stand = (ArmorStand) holoLoc.getWorld().spawnEntity(holoLoc, EntityType.ARMOR_STAND);
-                stand.setCustomName(color(parsed));
-                stand.setCustomNameVisible(true);
-                stand.setVisible(false);
-                stand.setGravity(false);
-                stand.setMarker(true);
-                stand.setSmall(true);
-                stand.setInvulnerable(true);
-                stands.add(stand);
-                holoLoc.subtract(0, 0.25, 0);
-            } catch (Exception e) { }
+    /**
+     * Periodic (once a second) refresh, thinned out by the view's distance tier.
+     * State changes should use {@link #updateHologram} so they show up at once.
+     */
+    public void tickHologram(PlacedGenerator generator, GeneratorType type) {
+        if (!type.isHologramEnabled()) return;
+        HologramView view = holograms.get(generator.getWorldName(), generator.getBlockKey());
+
+        if (view == null) {
+            createHologram(generator, type);
+            return;
         }
-        if (!stands.isEmpty()) holograms.put(key, stands);
+
+        if (!throttled(view)) refresh(view);
     }
 
     public void updateHologram(PlacedGenerator generator, GeneratorType type) {
         if (!type.isHologramEnabled()) return;
-        String key = generator.getLocationKey();
-        List<ArmorStand> stands = holograms.get(key);
+        HologramView view = holograms.get(generator.getWorldName(), generator.getBlockKey());
 
-        if (stands == null || stands.isEmpty()) {
+        if (view == null) {
             createHologram(generator, type);
             return;
         }
 
-        List<String> lines = type.getHologramLines();
-        for (int i = 0; i < stands.size() && i < lines.size(); i++) {
-            ArmorStand stand = stands.get(i);
-            if (stand != null && !stand.isDead()) {
-                stand.setCustomName(color(parseLine(lines.get(i), generator, type)));
-            }
-        }
+        refresh(view);
     }
 
     public void removeHologram(PlacedGenerator generator) {
-        List<ArmorStand> stands = holograms.remove(generator.getLocationKey());
-        if (stands != null) {
-            for (ArmorStand stand : stands) {
-                if (stand != null && !stand.isDead()) stand.remove();
-            }
-        }
+        HologramView view = holograms.remove(generator.getWorldName(), generator.getBlockKey());
+        if (view != null) removeView(view);
     }
 
     public void createMultiBlockHologram(MultiBlockStructure structure) {
         Location pump = structure.getPumpLocation();
         if (pump == null || pump.getWorld() == null) return;
 
-        String key = structure.getStructureKey();
         removeMultiBlockHologram(structure);
 
-        List<ArmorStand> stands = new ArrayList<>();
         Location holoLoc = pump.clone().add(0.5, 2.0, 0.5);
+        RigView view = new RigView(holoLoc, structure);
+        multiBlockHolograms.put(structure.getStructureKey(), view);
+        addView(view);
+    }
 
-        String[] lines = {"&8&l⛽ &7Буровая", "&aРаботает", "&7%time%"};
+    public void updateMultiBlockHologram(MultiBlockStructure structure, int delay) {
+        HologramView view = multiBlockHolograms.get(structure.getStructureKey());
 
-        for (String line : lines) {
-            String parsed = parseMultiLine(line, structure, 1200);
-            try {
-                ArmorStand stand = (ArmorStand) holoLoc.getWorld().spawnEntity(holoLoc, EntityType.ARMOR_STAND);
-                stand.setCustomName(color(parsed));
-                stand.setCustomNameVisible(true);
-                stand.setVisible(false);
-                stand.setGravity(false);
-                stand.setMarker(true);
-                stand.setSmall(true);
-                stand.setInvulnerable(true);
-                stands.add(stand);
-                holoLoc.subtract(0, 0.25, 0);
-            } catch (Exception e) { }
+        if (!(view instanceof RigView)) {
+            createMultiBlockHologram(structure);
+            return;
         }
-        if (!stands.isEmpty()) multiBlockHolograms.put(key, stands);
+
+        ((RigView) view).delay = delay;
+        if (!throttled(view)) refresh(view);
     }
 
-    public void updateMultiBlockHologram(MultiBlockStructure structure, int delay) {
-        String key = structure.getStructureKey();
-        List<ArmorStand> stands = multiBlockHolograms.get(key);
+    public void removeMultiBlockHologram(MultiBlockStructure structure) {
+        HologramView view = multiBlockHolograms.remove(structure.getStructureKey());
+        if (view != null) removeView(view);
+    }
 
-        if (stands == null || stands.isEmpty()) {
-            createMultiBlockHologram(structure);
+    /**
+     * Pushes the current text to the entity; views without one are not rendered at all.
+     */
+    private void refresh(HologramView view) {
+        updateCount++;
+        if (view.entity == null) {
+            culledUpdates++;
+            return;
+        }
+        if (!view.entity.isValid()) {
+            // Сущность убрали извне - пересоздаём
+            view.entity = null;
+            spawn(view);
             return;
         }
 
-        String[] lines = {"&8&l⛽ &7Буровая", "&aРаботает", "&7%time%"};
-        for (int i = 0; i < stands.size() && i < lines.length; i++) {
-            ArmorStand stand = stands.get(i);
-            if (stand != null && !stand.isDead()) {
-                stand.setCustomName(color(parseMultiLine(lines[i], structure, delay)));
+        int changed = view.entity.setLines(view.render());
+        if (changed == 0) {
+            skippedUpdates++;
+        } else {
+            changedLines += changed;
+        }
+    }
+
+    // true - пропускаем это периодическое обновление
+    private boolean throttled(HologramView view) {
+        if (view.entity == null || view.refreshInterval == 1) return false;
+        if (view.refreshInterval == 0 || --view.refreshCountdown > 0) {
+            throttledUpdates++;
+            return true;
+        }
+        view.refreshCountdown = view.refreshInterval;
+        return false;
+    }
+
+    private int refreshInterval(int chunks) {
+        ConfigManager config = plugin.getConfigManager();
+        if (chunks <= config.getHologramNearChunks()) return 1;
+        if (chunks <= config.getHologramMidChunks()) return config.getHologramMidInterval();
+        return 0;
+    }
+
+    private void addView(HologramView view) {
+        viewsByChunk.computeIfAbsent(view.worldName, k -> new HashMap<>())
+                .computeIfAbsent(GeneratorBuckets.chunkKey(view.chunkX, view.chunkZ), k -> new ArrayList<>(2))
+                .add(view);
+
+        // Рядом уже кто-то есть (только что поставили) - показываем сразу, не ждём прохода
+        double radius = plugin.getConfigManager().getHologramViewDistance() * 16.0;
+        if (plugin.getGeneratorManager().getPlayerGrid().hasPlayerNear(view.worldName,
+                view.top.getX(), view.top.getY(), view.top.getZ(), radius)) {
+            spawn(view);
+        }
+    }
+
+    private void removeView(HologramView view) {
+        despawn(view);
+        Map<Long, List<HologramView>> chunks = viewsByChunk.get(view.worldName);
+        if (chunks == null) return;
+        long key = GeneratorBuckets.chunkKey(view.chunkX, view.chunkZ);
+        List<HologramView> list = chunks.get(key);
+        if (list == null) return;
+        list.remove(view);
+        if (list.isEmpty()) {
+            chunks.remove(key);
+            if (chunks.isEmpty()) viewsByChunk.remove(view.worldName);
+        }
+    }
+
+    private void spawn(HologramView view) {
+        if (view.entity != null) return;
+        World world = view.top.getWorld();
+        if (world == null || !world.isChunkLoaded(view.chunkX, view.chunkZ)) return;
+
+        adopt(view, backend().spawn(view.top, view.render(), view.tag));
+    }
+
+    private void adopt(HologramView view, Hologram hologram) {
+        view.entity = hologram;
+        if (hologram == null) return;
+        if (view.seenPass != visibilityPass) view.nearestChunk = 0;  // заспавнена не проходом - считаем, что игрок рядом
+        view.seenPass = visibilityPass;
+        if (!view.listed) {
+            view.listed = true;
+            spawned.add(view);
+        }
+    }
+
+    /**
+     * Handles hologram entities that were saved with their chunk (the server
+     * stopped without {@link #removeAllHolograms}): a leftover whose hologram has
+     * no entity yet is reused where the backend allows it, everything else is removed.
+     */
+    public void reconcile(@NotNull Collection<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            String tag = HologramBackend.getTag(entity);
+            if (tag == null) continue;
+
+            HologramView view = findView(tag);
+            if (view != null && view.entity != null && view.entity.contains(entity)) continue;  // наша живая
+
+            if (view != null && view.entity == null) {
+                Hologram hologram = backend().attach(entity, view.render());
+                if (hologram != null) {
+                    adopt(view, hologram);
+                    reattached++;
+                    continue;
+                }
             }
+            entity.remove();
+            purged++;
         }
     }
 
-    public void removeMultiBlockHologram(MultiBlockStructure structure) {
-        List<ArmorStand> stands = multiBlockHolograms.remove(structure.getStructureKey());
-        if (stands != null) {
-            for (ArmorStand stand : stands) {
-                if (stand != null && !stand.isDead()) stand.remove();
+    /**
+     * Reconciles entities of chunks that were already loaded when the plugin started.
+     */
+    public void reconcileLoadedChunks() {
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                reconcile(Arrays.asList(chunk.getEntities()));
             }
         }
     }
 
-    public void removeAllHolograms() {
-        for (List<ArmorStand> stands : holograms.values()) {
-            for (ArmorStand stand : stands) {
-                if (stand != null && !stand.isDead()) stand.remove();
+    @Nullable
+    private HologramView findView(String tag) {
+        if (tag.startsWith(RIG_TAG)) return multiBlockHolograms.get(tag.substring(RIG_TAG.length()));
+        if (!tag.startsWith(GENERATOR_TAG)) return null;
+
+        int separator = tag.lastIndexOf(':');
+        try {
+            return holograms.get(tag.substring(GENERATOR_TAG.length(), separator), Long.parseLong(tag.substring(separator + 1)));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private void despawn(HologramView view) {
+        if (view.entity == null) return;
+        view.entity.remove();
+        view.entity = null;
+    }
+
+    /**
+     * Spawns holograms in chunks near players and despawns the ones nobody is near.
+     * Walks chunks around each player rather than every hologram.
+     */
+    public void updateVisibility() {
+        int pass = ++visibilityPass;
+        int radius = plugin.getConfigManager().getHologramViewDistance();
+
+        plugin.getGeneratorManager().getPlayerGrid().forEachTrackedChunk((worldName, chunkX, chunkZ) -> {
+            Map<Long, List<HologramView>> chunks = viewsByChunk.get(worldName);
+            if (chunks == null) return;
+            for (int cx = chunkX - radius; cx <= chunkX + radius; cx++) {
+                for (int cz = chunkZ - radius; cz <= chunkZ + radius; cz++) {
+                    List<HologramView> list = chunks.get(GeneratorBuckets.chunkKey(cx, cz));
+                    if (list == null) continue;
+                    int distance = Math.max(Math.abs(cx - chunkX), Math.abs(cz - chunkZ));
+                    for (int i = 0; i < list.size(); i++) {
+                        HologramView view = list.get(i);
+                        if (view.seenPass != pass || distance < view.nearestChunk) view.nearestChunk = distance;
+                        view.seenPass = pass;
+                        if (view.entity == null) spawn(view);
+                    }
+                }
+            }
+        });
+
+        List<HologramView> visible = new ArrayList<>(spawned.size());
+        for (HologramView view : spawned) {
+            if (view.entity != null && view.seenPass != pass) despawn(view);
+            if (view.entity != null) {
+                visible.add(view);
+                int interval = refreshInterval(view.nearestChunk);
+                if (interval != view.refreshInterval) {
+                    // Сменился ярус - первое обновление сразу
+                    view.refreshInterval = interval;
+                    view.refreshCountdown = 1;
+                }
+            } else {
+                view.listed = false;
             }
         }
+        spawned = visible;
+    }
+
+    /**
+     * Despawns holograms of an unloading chunk; they come back when a player is near again.
+     */
+    public void onChunkUnload(String worldName, int chunkX, int chunkZ) {
+        Map<Long, List<HologramView>> chunks = viewsByChunk.get(worldName);
+        if (chunks == null) return;
+        List<HologramView> list = chunks.get(GeneratorBuckets.chunkKey(chunkX, chunkZ));
+        if (list == null) return;
+        for (HologramView view : list) {
+            despawn(view);
+        }
+    }
+
+    public long getUpdateCount() { return updateCount; }
+    public long getSkippedUpdates() { return skippedUpdates; }
+    public long getChangedLines() { return changedLines; }
+    public long getCulledUpdates() { return culledUpdates; }
+    public long getThrottledUpdates() { return throttledUpdates; }
+    public int getSpawnedCount() { return spawned.size(); }
+    public int getHologramCount() { return holograms.size() + multiBlockHolograms.size(); }
+
+    public void removeAllHolograms() {
+        holograms.forEachValue(this::despawn);
         holograms.clear();
 
-        for (List<ArmorStand> stands : multiBlockHolograms.values()) {
-            for (ArmorStand stand : stands) {
-                if (stand != null && !stand.isDead()) stand.remove();
-            }
+        for (HologramView view : multiBlockHolograms.values()) {
+            despawn(view);
         }
         multiBlockHolograms.clear();
+        viewsByChunk.clear();
+        for (HologramView view : spawned) {
+            view.listed = false;
+        }
+        spawned.clear();
     }
 
     public void refreshAllHolograms() {
         removeAllHolograms();
-        for (PlacedGenerator g : plugin.getGeneratorManager().getPlacedGenerators().values()) {
+        plugin.getGeneratorManager().forEachGenerator(g -> {
             GeneratorType type = plugin.getConfigManager().getGeneratorType(g.getTypeId());
             if (type != null) createHologram(g, type);
-        }
+        });
         for (MultiBlockStructure s : plugin.getMultiBlockManager().getStructures().values()) {
             if (s.isComplete()) createMultiBlockHologram(s);
         }
     }
 
-    private String parseLine(String line, PlacedGenerator generator, GeneratorType type) {
-        // Определяем статус рудника
-        String statusText;
-        if (generator.isBroken()) {
-            statusText = "&c[СЛОМАН]";
-        } else if (type.isRepairRequired() && generator.getMineHealth() < type.getMaxHealth()) {
-            statusText = "&c[ТРЕБУЕТ АКТИВАЦИИ]";
-        } else if (type.isRepairRequired() && generator.getMineHealth() >= type.getMaxHealth()) {
-            statusText = "&a[АКТИВЕН]";
-        } else {
-            statusText = "";
+    // Статусы уже в §-кодах, подставляются как есть
+    private static final String STATUS_BROKEN = "§c[СЛОМАН]";
+    private static final String STATUS_STORAGE_FULL = "§e[ХРАНИЛИЩЕ ПОЛНО]";
+    private static final String STATUS_NEEDS_REPAIR = "§c[ТРЕБУЕТ АКТИВАЦИИ]";
+    private static final String STATUS_ACTIVE = "§a[АКТИВЕН]";
+    private static final String BROKEN_TIME_LINE = "§c⚠ СЛОМАН";
+
+    private String statusText(PlacedGenerator generator, GeneratorType type) {
+        if (generator.isBroken()) return STATUS_BROKEN;
+        if (plugin.getGeneratorManager().isStorageFull(generator)) return STATUS_STORAGE_FULL;
+        if (type.isRepairRequired()) {
+            return generator.getMineHealth() < type.getMaxHealth() ? STATUS_NEEDS_REPAIR : STATUS_ACTIVE;
         }
+        return "";
+    }
 
-        // Если сломан — строку с таймером тоже заменяем
-        if (generator.isBroken() && line.contains("%time%")) {
-            return "&c⚠ СЛОМАН";
+    private List<String> renderLines(PlacedGenerator generator, GeneratorType type) {
+        List<HologramTemplate> templates = type.getHologramTemplates();
+        List<String> rendered = new ArrayList<>(templates.size());
+        String status = statusText(generator, type);
+        int remaining = plugin.getGeneratorManager().getRemainingTicks(generator);
+        long total = generator.getTotalGenerated();
+
+        for (HologramTemplate template : templates) {
+            // Если сломан — строку с таймером тоже заменяем
+            if (generator.isBroken() && template.hasTime()) {
+                rendered.add(BROKEN_TIME_LINE);
+            } else {
+                rendered.add(template.render(lineBuffer, remaining, total, status));
+            }
         }
-
-        int remaining = generator.getRemainingTicks(type.getDelay());
-
-        return line
-                .replace("%time%", generator.formatTime(remaining))
-                .replace("%total%", String.valueOf(generator.getTotalGenerated()))
-                .replace("%type%", type.getName())
-                .replace("%status%", statusText);
+        return rendered;
     }
 
-    private String parseMultiLine(String line, MultiBlockStructure structure, int delay) {
+    private List<String> renderMultiLines(MultiBlockStructure structure, int delay) {
+        List<String> rendered = new ArrayList<>(MULTIBLOCK_TEMPLATES.size());
         int remaining = structure.getRemainingTicks(delay);
-        return line.replace("%time%", structure.formatTime(remaining))
-                .replace("%total%", String.valueOf(structure.getTotalGenerated()));
+        for (HologramTemplate template : MULTIBLOCK_TEMPLATES) {
+            rendered.add(template.render(lineBuffer, remaining, structure.getTotalGenerated(), ""));
+        }
+        return rendered;
     }
 
     public void debugHolograms() {
-        plugin.getLogger().info("Голограмм: " + holograms.size() + " + " + multiBlockHolograms.size() + " (multi)");
-    }
-
-    private String color(String text) {
-        return text.replace("&", "§");
+        plugin.getLogger().info("Голограмм: " + holograms.size() + " + " + multiBlockHolograms.size() + " (multi), backend: " + backend());
+        plugin.getLogger().info("Обновлений: " + updateCount + ", без изменений: " + skippedUpdates
+                + ", без сущности: " + culledUpdates + ", реже по дальности: " + throttledUpdates
+                + ", строк изменено: " + changedLines);
+        plugin.getLogger().info("Заспавнено: " + spawned.size() + " из " + getHologramCount()
+                + ", подхвачено после рестарта: " + reattached + ", удалено лишних: " + purged);
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import com.factory.generators.models.MultiBlockStructure.PartType;
 import com.factory.generators.utils.Logger;
 import com.factory.generators.utils.Utils;
 import org.bukkit.*;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -30,12 +31,16 @@ public class MultiBlockManager {
     public static final Material PUMP_MATERIAL = Material.REDSTONE_BLOCK;      // Станок - редстоун блок
 
     private static final int GENERATION_DELAY = 1200;
+    private static final BlockData STONE_DATA = Material.STONE.createBlockData();
+    private static ItemStack oilPrototype;
+    private final NamespacedKey partKey;
     private int animationTick = 0;
 
     public MultiBlockManager(IronFactory plugin) {
         this.plugin = plugin;
         this.structures = new HashMap<>();
         this.partToStructure = new HashMap<>();
+        this.partKey = new NamespacedKey(plugin, "drill_part");
     }
 
     public void registerLoadedStructure(MultiBlockStructure structure) {
@@ -163,8 +168,8 @@ public class MultiBlockManager {
 
         location.getBlock().setType(DRILL_MATERIAL, false);
 
-        location.getWorld().playSound(location, Sound.BLOCK_ANVIL_PLACE, 1f, 0.8f);
-        location.getWorld().spawnParticle(Particle.SMOKE_NORMAL, location.clone().add(0.5, 0.5, 0.5), 10);
+        plugin.getEffectDispatcher().sound(location, Sound.BLOCK_ANVIL_PLACE, 1f, 0.8f);
+        plugin.getEffectDispatcher().particle(Particle.SMOKE_NORMAL, location.clone().add(0.5, 0.5, 0.5), 10, 0, 0, 0, 1);
 
         player.sendMessage(color("&e[Буровая] &fДолото установлено! (Незеритовый блок)"));
         player.sendMessage(color("&7Поставьте &fТрубу &7(медный блок) сверху"));
@@ -197,7 +202,7 @@ public class MultiBlockManager {
         // Удаляем предыдущий блок перед установкой нового БЕЗ физики
 
         location.getBlock().setType(PIPE_MATERIAL, false);
-        location.getWorld().playSound(location, Sound.BLOCK_COPPER_PLACE, 1f, 1f);
+        plugin.getEffectDispatcher().sound(location, Sound.BLOCK_COPPER_PLACE, 1f, 1f);
 
         player.sendMessage(color("&e[Буровая] &fТруба установлена! (Медный блок)"));
         player.sendMessage(color("&7Поставьте &fСтанок &7(редстоун блок) сверху"));
@@ -234,7 +239,7 @@ public class MultiBlockManager {
         // ЗАВЕРШЕНО!
         structure.setComplete(true);
 
-        location.getWorld().playSound(location, Sound.UI_TOAST_CHALLENGE_COMPLETE, 1f, 1f);
+        plugin.getEffectDispatcher().sound(location, Sound.UI_TOAST_CHALLENGE_COMPLETE, 1f, 1f);
 
         plugin.getHologramManager().createMultiBlockHologram(structure);
 
@@ -303,7 +308,7 @@ public class MultiBlockManager {
             }
         }
 
-        structures.remove(structureKey);
+        if (structures.remove(structureKey) != null) plugin.getDataManager().markRemoved(structure);
     }
 
     public ItemStack createPartItem(String partName) {
@@ -340,8 +345,7 @@ public class MultiBlockManager {
             for (String line : lore) coloredLore.add(color(line));
             meta.setLore(coloredLore);
 
-            NamespacedKey key = new NamespacedKey(plugin, "drill_part");
-            meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, partName.toLowerCase());
+            meta.getPersistentDataContainer().set(partKey, PersistentDataType.STRING, partName.toLowerCase());
 
             meta.addEnchant(Enchantment.DURABILITY, 1, true);
             meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
@@ -356,9 +360,8 @@ public class MultiBlockManager {
         ItemMeta meta = item.getItemMeta();
         if (meta == null) return null;
 
-        NamespacedKey key = new NamespacedKey(plugin, "drill_part");
-        if (meta.getPersistentDataContainer().has(key, PersistentDataType.STRING)) {
-            return meta.getPersistentDataContainer().get(key, PersistentDataType.STRING);
+        if (meta.getPersistentDataContainer().has(partKey, PersistentDataType.STRING)) {
+            return meta.getPersistentDataContainer().get(partKey, PersistentDataType.STRING);
         }
         return null;
     }
@@ -372,31 +375,36 @@ public class MultiBlockManager {
         return null;
     }
 
-    public void tickAll() {
+    /**
+     * Starts a once-per-second pass: collects the structures to tick.
+     */
+    public void beginTickPass(List<MultiBlockStructure> out) {
         animationTick++;
+        out.addAll(structures.values());
+    }
 
-        for (MultiBlockStructure structure : new ArrayList<>(structures.values())) {
-            if (!structure.isComplete()) continue;
+    public void tickStructure(MultiBlockStructure structure) {
+        if (!structure.isComplete()) return;
+        if (structures.get(structure.getStructureKey()) != structure) return;  // убрана, пока шёл проход
 
-            Location drillLoc = structure.getDrillLocation();
-            if (drillLoc == null || drillLoc.getWorld() == null) continue;
+        Location drillLoc = structure.getDrillLocation();
+        if (drillLoc == null || drillLoc.getWorld() == null) return;
 
-            if (!drillLoc.getWorld().isChunkLoaded(drillLoc.getBlockX() >> 4, drillLoc.getBlockZ() >> 4)) {
-                continue;
-            }
+        if (!drillLoc.getWorld().isChunkLoaded(drillLoc.getBlockX() >> 4, drillLoc.getBlockZ() >> 4)) {
+            return;
+        }
 
-            structure.tick(20);
+        structure.tick(20);
 
-            if (animationTick % 3 == 0) {
-                playAnimation(structure);
-            }
+        if (animationTick % 3 == 0) {
+            playAnimation(structure);
+        }
 
-            plugin.getHologramManager().updateMultiBlockHologram(structure, GENERATION_DELAY);
+        plugin.getHologramManager().updateMultiBlockHologram(structure, GENERATION_DELAY);
 
-            if (structure.getCurrentTick() >= GENERATION_DELAY) {
-                generateOil(structure);
-                structure.resetTick();
-            }
+        if (structure.getCurrentTick() >= GENERATION_DELAY) {
+            generateOil(structure);
+            structure.resetTick();
         }
     }
 
@@ -406,22 +414,22 @@ public class MultiBlockManager {
 
         if (drill == null || pump == null || drill.getWorld() == null) return;
 
-        drill.getWorld().spawnParticle(Particle.BLOCK_CRACK, drill.clone().add(0.5, 0.3, 0.5),
-                5, 0.2, 0.1, 0.2, 0.01, Material.STONE.createBlockData());
+        plugin.getEffectDispatcher().particle(Particle.BLOCK_CRACK, drill.clone().add(0.5, 0.3, 0.5),
+                5, 0.2, 0.1, 0.2, 0.01, STONE_DATA);
 
-        pump.getWorld().spawnParticle(Particle.CAMPFIRE_SIGNAL_SMOKE, pump.clone().add(0.5, 1.2, 0.5),
+        plugin.getEffectDispatcher().particle(Particle.CAMPFIRE_SIGNAL_SMOKE, pump.clone().add(0.5, 1.2, 0.5),
                 1, 0.1, 0.1, 0.1, 0.01);
 
         if (RANDOM.nextDouble() < 0.3) {
             Location pipe = structure.getPipeLocation();
             if (pipe != null) {
-                pipe.getWorld().spawnParticle(Particle.SQUID_INK, pipe.clone().add(0.5, 0.5, 0.5),
+                plugin.getEffectDispatcher().particle(Particle.SQUID_INK, pipe.clone().add(0.5, 0.5, 0.5),
                         2, 0.1, 0.2, 0.1, 0.01);
             }
         }
 
         if (RANDOM.nextDouble() < 0.15) {
-            drill.getWorld().playSound(drill, Sound.BLOCK_PISTON_EXTEND, 0.3f, 0.5f);
+            plugin.getEffectDispatcher().sound(drill, Sound.BLOCK_PISTON_EXTEND, 0.3f, 0.5f);
         }
     }
 
@@ -429,31 +437,45 @@ public class MultiBlockManager {
         Location pump = structure.getPumpLocation();
         if (pump == null || pump.getWorld() == null) return;
 
-        ItemStack oil = new ItemStack(Material.INK_SAC, 1);
-        ItemMeta meta = oil.getItemMeta();
-        if (meta != null) {
-            // &8⛽ &f — серая иконка + белое название, хорошо видно в инвентаре
-            // Раньше было &0 (чёрный) — почти не видно на тёмном фоне
-            meta.setDisplayName(color("&8⛽ &fНефть"));
-
-            // Arrays.asList + color() для каждой строки — так уже сделано в createPartItem
-            // Без color() игрок видел бы "&7Сырая нефть" вместо серого текста
-            meta.setLore(Arrays.asList(
-                    color(""),
-                    color("&7Сырая нефть"),
-                    color("&8Из буровой вышки")
-            ));
-
-            oil.setItemMeta(meta);
-        }
+        ItemStack oil = createOilItem(1);
 
         Location dropLoc = pump.clone().add(0.5, 1.5, 0.5);
         pump.getWorld().dropItem(dropLoc, oil);
 
         structure.incrementGenerated();
 
-        pump.getWorld().spawnParticle(Particle.SQUID_INK, dropLoc, 20, 0.2, 0.4, 0.2, 0.08);
-        pump.getWorld().playSound(pump, Sound.BLOCK_BUBBLE_COLUMN_UPWARDS_AMBIENT, 0.6f, 0.5f);
+        plugin.getEffectDispatcher().particle(Particle.SQUID_INK, dropLoc, 20, 0.2, 0.4, 0.2, 0.08);
+        plugin.getEffectDispatcher().sound(pump, Sound.BLOCK_BUBBLE_COLUMN_UPWARDS_AMBIENT, 0.6f, 0.5f);
+    }
+
+    /**
+     * Oil item; the meta is built once and cloned afterwards.
+     */
+    public static ItemStack createOilItem(int amount) {
+        if (oilPrototype == null) {
+            ItemStack oil = new ItemStack(Material.INK_SAC, 1);
+            ItemMeta meta = oil.getItemMeta();
+            if (meta != null) {
+                // &8⛽ &f — серая иконка + белое название, хорошо видно в инвентаре
+                // Раньше было &0 (чёрный) — почти не видно на тёмном фоне
+                meta.setDisplayName(color("&8⛽ &fНефть"));
+
+                // Arrays.asList + color() для каждой строки — так уже сделано в createPartItem
+                // Без color() игрок видел бы "&7Сырая нефть" вместо серого текста
+                meta.setLore(Arrays.asList(
+                        color(""),
+                        color("&7Сырая нефть"),
+                        color("&8Из буровой вышки")
+                ));
+
+                oil.setItemMeta(meta);
+            }
+            oilPrototype = oil;
+        }
+
+        ItemStack oil = oilPrototype.clone();
+        oil.setAmount(amount);
+        return oil;
     }
 
     public MultiBlockStructure getStructureAt(Location location) {
@@ -471,7 +493,7 @@ public class MultiBlockManager {
         return structures;
     }
 
-    private String color(String text) {
+    private static String color(String text) {
         return text.replace("&", "§");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.factory.generators.managers;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-world chunk grid of online player positions.
+ * Kept up to date from move/teleport/join/quit events so "is anyone near this
+ * generator" is a few cell lookups instead of a distance check against every
+ * player in the world.
+ */
+public class PlayerGrid {
+
+    private final Map<String, Map<Long, List<Tracked>>> worlds = new HashMap<>();
+    private final Map<UUID, Tracked> players = new HashMap<>();
+
+    /**
+     * Last known position of a player.
+     */
+    private static final class Tracked {
+        final UUID uuid;
+        final Player player;
+        String worldName;
+        int cellX;
+        int cellZ;
+        double x;
+        double y;
+        double z;
+
+        Tracked(Player player) {
+            this.uuid = player.getUniqueId();
+            this.player = player;
+        }
+    }
+
+    /**
+     * Records a player's new position; only crossing a chunk border touches the grid.
+     */
+    public void update(@NotNull Player player, @NotNull Location to) {
+        World world = to.getWorld();
+        if (world == null) return;
+
+        String worldName = world.getName();
+        int cellX = to.getBlockX() >> 4;
+        int cellZ = to.getBlockZ() >> 4;
+
+        Tracked tracked = players.get(player.getUniqueId());
+        if (tracked == null) {
+            tracked = new Tracked(player);
+            players.put(tracked.uuid, tracked);
+            place(tracked, worldName, cellX, cellZ);
+        } else if (tracked.cellX != cellX || tracked.cellZ != cellZ || !tracked.worldName.equals(worldName)) {
+            unplace(tracked);
+            place(tracked, worldName, cellX, cellZ);
+        }
+
+        tracked.x = to.getX();
+        tracked.y = to.getY();
+        tracked.z = to.getZ();
+    }
+
+    public void remove(@NotNull Player player) {
+        Tracked tracked = players.remove(player.getUniqueId());
+        if (tracked != null) unplace(tracked);
+    }
+
+    public void clear() {
+        worlds.clear();
+        players.clear();
+    }
+
+    /**
+     * Whether any tracked player is within {@code radius} blocks of the point.
+     */
+    public boolean hasPlayerNear(@NotNull String worldName, double x, double y, double z, double radius) {
+        Map<Long, List<Tracked>> cells = worlds.get(worldName);
+        if (cells == null) return false;
+
+        double radiusSquared = radius * radius;
+        int minX = (int) Math.floor(x - radius) >> 4;
+        int maxX = (int) Math.floor(x + radius) >> 4;
+        int minZ = (int) Math.floor(z - radius) >> 4;
+        int maxZ = (int) Math.floor(z + radius) >> 4;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<Tracked> cell = cells.get(GeneratorBuckets.chunkKey(cx, cz));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size(); i++) {
+                    Tracked t = cell.get(i);
+                    double dx = t.x - x;
+                    double dy = t.y - y;
+                    double dz = t.z - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSquared) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every tracked player within {@code radius} blocks of the point to {@code out}.
+     */
+    public void collectPlayersNear(@NotNull String worldName, double x, double y, double z, double radius,
+                                   @NotNull List<Player> out) {
+        Map<Long, List<Tracked>> cells = worlds.get(worldName);
+        if (cells == null) return;
+
+        double radiusSquared = radius * radius;
+        int minX = (int) Math.floor(x - radius) >> 4;
+        int maxX = (int) Math.floor(x + radius) >> 4;
+        int minZ = (int) Math.floor(z - radius) >> 4;
+        int maxZ = (int) Math.floor(z + radius) >> 4;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<Tracked> cell = cells.get(GeneratorBuckets.chunkKey(cx, cz));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size(); i++) {
+                    Tracked t = cell.get(i);
+                    double dx = t.x - x;
+                    double dy = t.y - y;
+                    double dz = t.z - z;
+                    if (dx * dx + dy * dy + dz * dz <= radiusSquared) out.add(t.player);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the chunk a tracked player stands in.
+     */
+    @FunctionalInterface
+    public interface ChunkVisitor {
+        void visit(String worldName, int chunkX, int chunkZ);
+    }
+
+    /**
+     * Calls the visitor once per tracked player with the chunk they are in.
+     */
+    public void forEachTrackedChunk(@NotNull ChunkVisitor visitor) {
+        for (Tracked tracked : players.values()) {
+            visitor.visit(tracked.worldName, tracked.cellX, tracked.cellZ);
+        }
+    }
+
+    public int getTrackedCount() {
+        return players.size();
+    }
+
+    private void place(Tracked tracked, String worldName, int cellX, int cellZ) {
+        tracked.worldName = worldName;
+        tracked.cellX = cellX;
+        tracked.cellZ = cellZ;
+        worlds.computeIfAbsent(worldName, k -> new HashMap<>())
+                .computeIfAbsent(GeneratorBuckets.chunkKey(cellX, cellZ), k -> new ArrayList<>(2))
+                .add(tracked);
+    }
+
+    private void unplace(Tracked tracked) {
+        Map<Long, List<Tracked>> cells = worlds.get(tracked.worldName);
+        if (cells == null) return;
+
+        long key = GeneratorBuckets.chunkKey(tracked.cellX, tracked.cellZ);
+        List<Tracked> cell = cells.get(key);
+        if (cell == null) return;
+
+        cell.remove(tracked);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+            if (cells.isEmpty()) worlds.remove(tracked.worldName);
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.factory.generators.managers;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Records kept in one binary file per world region (32x32 chunks, like vanilla
+ * region files): {@code <dir>/<world>/r.<x>.<z>.dat}. A save rewrites only the
+ * regions where a record was added, changed or removed, so its cost follows
+ * the churn rather than the number of records. Region contents are encoded on
+ * the main thread and written by a {@link SnapshotWriter}.
+ * <p>
+ * File layout (big-endian): magic, format version, record size, string table
+ * (type ids, UUIDs, material names), record count, fixed-width records, CRC32
+ * of everything before it. Files are read whole onto the heap, several at a
+ * time on loader threads, not memory-mapped: a mapping keeps the file locked
+ * on Windows until it is garbage collected, so the next save could not replace it.
+ *
+ * @param <T> record type
+ */
+public class RegionStore<T> {
+
+    private static final int REGION_SHIFT = 9;  // 512 блоков = 32 чанка
+    private static final int MAGIC = 0x49465247;  // "IFRG"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".dat";
+    private static final String YAML_EXTENSION = ".yml";
+    // magic + версия + размер записи + строк 0 + записей 0 + CRC
+    private static final int MIN_FILE_SIZE = 4 * 6;
+
+    /**
+     * The live records a save reads from.
+     */
+    public interface Records<T> {
+        void forEach(Consumer<T> action);
+
+        /**
+         * Records of a world within the block bounds (inclusive).
+         */
+        void forEachInRegion(String worldName, int minBlockX, int minBlockZ, int maxBlockX, int maxBlockZ,
+                             Consumer<T> action);
+    }
+
+    /**
+     * How records map to regions and fixed-width binary records.
+     */
+    public interface Codec<T> {
+        String getWorldName(T record);
+
+        int getBlockX(T record);
+
+        int getBlockZ(T record);
+
+        boolean isDirty(T record);
+
+        void clearDirty(T record);
+
+        /** Bytes the record needs; every record of a region file is padded to the largest. */
+        int recordSize(T record);
+
+        void write(T record, ByteBuffer out, StringTable strings);
+
+        /**
+         * @param in the record's bytes, positioned at its start
+         * @return the decoded record, or null to skip it
+         */
+        @Nullable
+        T read(String worldName, ByteBuffer in, StringTable strings);
+    }
+
+    /**
+     * Strings of one region file (or journal batch); records refer to them by index, -1 for null.
+     */
+    public static final class StringTable {
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        public int indexOf(@Nullable String value) {
+            if (value == null) return -1;
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                indexes.put(value, index);
+            }
+            return index;
+        }
+
+        @Nullable
+        public String get(int index) {
+            return index >= 0 && index < strings.size() ? strings.get(index) : null;
+        }
+
+        byte[][] encode() {
+            byte[][] encoded = new byte[strings.size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                if (encoded[i].length > 0xFFFF) throw new IllegalArgumentException("string too long");
+            }
+            return encoded;
+        }
+
+        static int encodedSize(byte[][] encoded) {
+            int size = 4;
+            for (byte[] string : encoded) size += 2 + string.length;
+            return size;
+        }
+
+        static void write(ByteBuffer out, byte[][] encoded) {
+            out.putInt(encoded.length);
+            for (byte[] string : encoded) {
+                out.putShort((short) string.length).put(string);
+            }
+        }
+
+        static StringTable read(ByteBuffer in) {
+            StringTable table = new StringTable();
+            int count = in.getInt();
+            if (count < 0 || count > in.remaining() / 2) throw new IllegalStateException("bad string table");
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.getShort() & 0xFFFF];
+                in.get(bytes);
+                table.strings.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return table;
+        }
+    }
+
+    private final File directory;
+    private final Codec<T> codec;
+    private final SnapshotWriter writer;
+    private final Logger logger;
+    // Регионы к перезаписи: там что-то изменили или удалили
+    private final Map<String, Set<Long>> dirtyRegions = new HashMap<>();
+    // Файлы, которые поток записи не смог сохранить - перепишем при следующем сохранении
+    private final Queue<File> failedFiles = new ConcurrentLinkedQueue<>();
+
+    public RegionStore(@NotNull File directory, @NotNull Codec<T> codec, @NotNull SnapshotWriter writer,
+                       @NotNull Logger logger) {
+        this.directory = directory;
+        this.codec = codec;
+        this.writer = writer;
+        this.logger = logger;
+    }
+
+    public static long regionKey(int blockX, int blockZ) {
+        return GeneratorBuckets.chunkKey(blockX >> REGION_SHIFT, blockZ >> REGION_SHIFT);
+    }
+
+    public boolean exists() {
+        return directory.isDirectory();
+    }
+
+    /**
+     * Marks the record's region for rewriting on the next save; call when a
+     * record changes or is removed.
+     */
+    public void markDirty(@NotNull T record) {
+        dirtyRegions.computeIfAbsent(codec.getWorldName(record), k -> new HashSet<>())
+                .add(regionKey(codec.getBlockX(record), codec.getBlockZ(record)));
+    }
+
+    public void markRemoved(@NotNull T record) {
+        markDirty(record);
+    }
+
+    /**
+     * Saves a small set of records that doesn't track its own changes: the
+     * regions of dirty records are found by walking all of them.
+     *
+     * @param records every live record
+     * @see #save(Records, boolean)
+     */
+    public int save(@NotNull Collection<T> records, boolean all) {
+        for (T record : records) {
+            if (codec.isDirty(record)) markDirty(record);
+        }
+        return save(new Records<T>() {
+            @Override
+            public void forEach(Consumer<T> action) {
+                records.forEach(action);
+            }
+
+            @Override
+            public void forEachInRegion(String worldName, int minBlockX, int minBlockZ, int maxBlockX, int maxBlockZ,
+                                        Consumer<T> action) {
+                for (T record : records) {
+                    int x = codec.getBlockX(record);
+                    int z = codec.getBlockZ(record);
+                    if (codec.getWorldName(record).equals(worldName)
+                            && x >= minBlockX && x <= maxBlockX && z >= minBlockZ && z <= maxBlockZ) {
+                        action.accept(record);
+                    }
+                }
+            }
+        }, all);
+    }
+
+    /**
+     * Encodes the regions marked by {@link #markDirty} (or every region with
+     * {@code all}) and queues them for writing. Only the marked regions are
+     * looked up, so the cost follows what changed, not how much is stored.
+     * Must run on the main thread.
+     *
+     * @return number of region files queued for writing or deletion
+     */
+    public int save(@NotNull Records<T> records, boolean all) {
+        File failed;
+        while ((failed = failedFiles.poll()) != null) {
+            markFailed(failed);
+        }
+
+        // Какие регионы переписывать
+        Map<String, Set<Long>> regions = new HashMap<>(dirtyRegions);
+        dirtyRegions.clear();
+        Map<String, Map<Long, List<T>>> files = new HashMap<>();
+        Consumer<T> collect = record -> files.computeIfAbsent(codec.getWorldName(record), k -> new HashMap<>())
+                .computeIfAbsent(regionKey(codec.getBlockX(record), codec.getBlockZ(record)), k -> new ArrayList<>())
+                .add(record);
+        if (all) {
+            records.forEach(record -> {
+                regions.computeIfAbsent(codec.getWorldName(record), k -> new HashSet<>())
+                        .add(regionKey(codec.getBlockX(record), codec.getBlockZ(record)));
+                collect.accept(record);
+            });
+        } else {
+            // Содержимое региона целиком - файл региона всегда полный
+            for (Map.Entry<String, Set<Long>> entry : regions.entrySet()) {
+                for (long region : entry.getValue()) {
+                    int minX = (int) region << REGION_SHIFT;
+                    int minZ = (int) (region >> 32) << REGION_SHIFT;
+                    int size = 1 << REGION_SHIFT;
+                    records.forEachInRegion(entry.getKey(), minX, minZ, minX + size - 1, minZ + size - 1, collect);
+                }
+            }
+        }
+        if (regions.isEmpty()) return 0;
+
+        // Пустой регион - файл удаляется
+        int queued = 0;
+        for (Map.Entry<String, Set<Long>> entry : regions.entrySet()) {
+            Map<Long, List<T>> worldFiles = files.getOrDefault(entry.getKey(), Map.of());
+            for (long region : entry.getValue()) {
+                List<T> regionRecords = worldFiles.get(region);
+                byte[] data = regionRecords == null ? null : encode(regionRecords);
+                writer.submit(regionFile(entry.getKey(), region), data, failedFiles::add);
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    private byte[] encode(List<T> records) {
+        int recordSize = 0;
+        for (T record : records) {
+            recordSize = Math.max(recordSize, codec.recordSize(record));
+        }
+
+        // Записи пишутся первыми - по ходу набирается таблица строк
+        StringTable strings = new StringTable();
+        ByteBuffer body = ByteBuffer.allocate(recordSize * records.size());
+        for (int i = 0; i < records.size(); i++) {
+            T record = records.get(i);
+            codec.write(record, body.slice(i * recordSize, recordSize), strings);
+            codec.clearDirty(record);
+        }
+
+        byte[][] table = strings.encode();
+        // Пустая таблица строк уже учтена в MIN_FILE_SIZE
+        ByteBuffer out = ByteBuffer.allocate(MIN_FILE_SIZE - 4 + StringTable.encodedSize(table) + body.capacity());
+        out.putInt(MAGIC).putInt(VERSION).putInt(recordSize);
+        StringTable.write(out, table);
+        out.putInt(records.size()).put(body.array());
+
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        return out.array();
+    }
+
+    // Имя файла региона обратно в мир и регион
+    private void markFailed(File file) {
+        String[] parts = file.getName().split("\\.");
+        if (parts.length != 4) return;
+        try {
+            long region = GeneratorBuckets.chunkKey(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            dirtyRegions.computeIfAbsent(file.getParentFile().getName(), k -> new HashSet<>()).add(region);
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    /**
+     * Reads every region file, passing each decoded record to {@code reader}.
+     * Files are read and decoded on {@code threads} worker threads; records
+     * reach {@code reader} on the calling thread as each file finishes.
+     * A damaged file is renamed to {@code .corrupt} and skipped.
+     *
+     * @return number of records read
+     */
+    public int load(@NotNull Consumer<T> reader, int threads) {
+        List<File> files = listRegionFiles(EXTENSION);
+        if (files.isEmpty()) return 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())), runnable -> {
+            Thread thread = new Thread(runnable, "IronFactory-Load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<List<T>> decoded = new ExecutorCompletionService<>(pool);
+        Map<Future<List<T>>, File> sources = new HashMap<>();
+        for (File file : files) {
+            sources.put(decoded.submit(() -> loadFile(file, file.getParentFile().getName())), file);
+        }
+
+        int loaded = 0;
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                Future<List<T>> future = decoded.take();
+                try {
+                    List<T> records = future.get();
+                    for (T record : records) reader.accept(record);
+                    loaded += records.size();
+                } catch (ExecutionException e) {
+                    File file = sources.get(future);
+                    logger.severe("[Data] Повреждён файл " + file + ": " + e.getCause().getMessage());
+                    File corrupt = new File(file.getPath() + ".corrupt");
+                    if (!file.renameTo(corrupt)) logger.severe("[Data] Не удалось переименовать " + file);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return loaded;
+    }
+
+    // Выполняется в потоках загрузки: кодек не должен трогать мир
+    private List<T> loadFile(File file, String worldName) throws IOException {
+        // Читаем в кучу, а не отображаем: отображение держит файл (в Windows его не перезаписать) до сборки мусора
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+        int size = buffer.capacity();
+        if (size < MIN_FILE_SIZE) throw new IOException("файл обрезан");
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, size - 4));
+        if ((int) crc.getValue() != buffer.getInt(size - 4)) throw new IOException("не сходится контрольная сумма");
+        if (buffer.getInt() != MAGIC) throw new IOException("не файл региона");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("неизвестная версия формата " + version);
+
+        int recordSize = buffer.getInt();
+        StringTable strings = StringTable.read(buffer);
+        int count = buffer.getInt();
+        int start = buffer.position();
+        if (recordSize < 0 || count < 0 || (long) recordSize * count != size - 4 - start) {
+            throw new IOException("неверный размер записей");
+        }
+
+        List<T> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            T record;
+            try {
+                record = codec.read(worldName, buffer.slice(start + i * recordSize, recordSize), strings);
+            } catch (RuntimeException e) {
+                logger.warning("[Data] Пропущена запись " + i + " в " + file + ": " + e.getMessage());
+                continue;
+            }
+            if (record != null) records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Whether region files of the old YAML format are still present.
+     */
+    public boolean hasYamlFiles() {
+        return !listRegionFiles(YAML_EXTENSION).isEmpty();
+    }
+
+    /**
+     * Reads region files of the old YAML format, passing each record's key and section to {@code reader}.
+     */
+    public void loadYaml(@NotNull String sectionName, @NotNull BiConsumer<String, ConfigurationSection> reader) {
+        for (File file : listRegionFiles(YAML_EXTENSION)) {
+            ConfigurationSection section = YamlConfiguration.loadConfiguration(file).getConfigurationSection(sectionName);
+            if (section == null) continue;
+            for (String key : section.getKeys(false)) {
+                ConfigurationSection record = section.getConfigurationSection(key);
+                if (record != null) reader.accept(key, record);
+            }
+        }
+    }
+
+    /**
+     * Renames the old YAML region files to {@code .migrated} once their records are saved in the binary format.
+     */
+    public void retireYamlFiles() {
+        for (File file : listRegionFiles(YAML_EXTENSION)) {
+            if (!file.renameTo(new File(file.getPath() + ".migrated"))) {
+                logger.warning("[Data] Не удалось переименовать " + file);
+            }
+        }
+    }
+
+    private List<File> listRegionFiles(String extension) {
+        List<File> result = new ArrayList<>();
+        File[] worlds = directory.listFiles(File::isDirectory);
+        if (worlds == null) return result;
+
+        for (File world : worlds) {
+            File[] regionFiles = world.listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(extension));
+            if (regionFiles != null) result.addAll(List.of(regionFiles));
+        }
+        return result;
+    }
+
+    private File regionFile(String worldName, long region) {
+        int regionX = (int) region;
+        int regionZ = (int) (region >> 32);
+        return new File(new File(directory, worldName), "r." + regionX + "." + regionZ + EXTENSION);
+    }
+}
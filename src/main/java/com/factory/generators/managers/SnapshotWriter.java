@@ -0,0 +1,203 @@
+package com.factory.generators.managers;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Background writer for data files. The main thread hands over snapshots it
+ * will never touch again (a YAML config or ready-made bytes); serialization,
+ * fsync and the atomic rename happen on a single writer thread. Requests queued before the writer gets
+ * to them coalesce: only the newest snapshot of each file is written.
+ */
+public class SnapshotWriter {
+
+    private final Logger logger;
+    private final ExecutorService executor;
+    private final Object lock = new Object();
+    private Map<File, Write> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Produces the file bytes on the writer thread.
+     */
+    private interface Content {
+        byte[] bytes();
+    }
+
+    /**
+     * A file snapshot; null content deletes the file.
+     */
+    private static final class Write {
+        final Content content;
+        final Consumer<File> onFailure;
+
+        Write(Content content, Consumer<File> onFailure) {
+            this.content = content;
+            this.onFailure = onFailure;
+        }
+    }
+
+    public SnapshotWriter(@NotNull Logger logger) {
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IronFactory-Save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a file snapshot.
+     *
+     * @param content   snapshot owned by the writer from now on, or null to delete the file
+     * @param onFailure called on the writer thread if the write fails
+     */
+    public void submit(@NotNull File file, @Nullable YamlConfiguration content, @Nullable Consumer<File> onFailure) {
+        enqueue(file, content == null ? null : () -> content.saveToString().getBytes(StandardCharsets.UTF_8), onFailure);
+    }
+
+    /**
+     * Queues a file snapshot that is already encoded.
+     *
+     * @param data bytes owned by the writer from now on, or null to delete the file
+     */
+    public void submit(@NotNull File file, @Nullable byte[] data, @Nullable Consumer<File> onFailure) {
+        enqueue(file, data == null ? null : () -> data, onFailure);
+    }
+
+    private void enqueue(File file, Content content, Consumer<File> onFailure) {
+        synchronized (lock) {
+            pending.put(file, new Write(content, onFailure));
+            if (!scheduled) {
+                scheduled = true;
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Map<File, Write> batch;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            for (Map.Entry<File, Write> entry : batch.entrySet()) {
+                File file = entry.getKey();
+                Write write = entry.getValue();
+                try {
+                    if (write.content == null) {
+                        Files.deleteIfExists(file.toPath());
+                    } else {
+                        writeAtomically(file, write.content.bytes());
+                    }
+                } catch (Exception e) {
+                    logger.warning("[Data] Не удалось сохранить " + file + ": " + e.getMessage());
+                    failures.incrementAndGet();
+                    if (write.onFailure != null) write.onFailure.accept(file);
+                }
+            }
+        }
+    }
+
+    // Пишем во временный файл, fsync, затем атомарно подменяем - при сбое остаётся старая версия.
+    // Сама подмена - запись в каталоге, её тоже нужно сбросить на диск
+    private static void writeAtomically(File file, byte[] data) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null) parent.mkdirs();
+        File temp = new File(parent, file.getName() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (parent != null) syncDirectory(parent);
+    }
+
+    private static void syncDirectory(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows не открывает каталог как файл; там переименование и так журналирует NTFS
+        }
+    }
+
+    /**
+     * Number of writes that have failed so far.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Runs {@code action} on the writer thread once everything queued so far has been written.
+     */
+    public void afterQueued(@NotNull Runnable action) {
+        executor.execute(action);
+    }
+
+    /**
+     * Blocks until everything queued so far has been written.
+     *
+     * @return false on timeout
+     */
+    public boolean flush(long timeoutMillis) {
+        try {
+            // Поток один: пустая задача выполнится после текущей очереди
+            executor.submit(() -> { }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finishes queued writes and stops the thread, waiting at most {@code timeoutMillis}.
+     *
+     * @return true if everything was written in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
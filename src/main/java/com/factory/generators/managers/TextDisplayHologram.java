@@ -0,0 +1,96 @@
+package com.factory.generators.managers;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.TextDisplay;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hologram rendered by a single TextDisplay entity: all lines in one component,
+ * so the server tracks one entity per hologram instead of one per line.
+ */
+public class TextDisplayHologram implements Hologram {
+
+    private final TextDisplay display;
+    private final String[] shown;
+
+    private TextDisplayHologram(TextDisplay display, List<String> lines) {
+        this.display = display;
+        this.shown = lines.toArray(new String[0]);
+    }
+
+    static Hologram spawn(Location top, List<String> lines, String tag) {
+        World world = top.getWorld();
+        if (world == null || lines.isEmpty()) return null;
+
+        // Текст растёт вверх от точки спавна - ставим по нижней строке,
+        // чтобы голограмма стояла там же, где стопка стоек
+        Location anchor = top.clone().subtract(0, HologramBackend.LINE_HEIGHT * (lines.size() - 1), 0);
+        try {
+            TextDisplay display = world.spawn(anchor, TextDisplay.class, d -> {
+                d.setBillboard(Display.Billboard.CENTER);
+                d.setAlignment(TextDisplay.TextAlignment.CENTER);
+                d.setGravity(false);
+                d.setInvulnerable(true);
+                d.setText(join(lines));
+                HologramBackend.tag(d, tag);
+            });
+            return new TextDisplayHologram(display, lines);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reuses a display left from a previous run if it has the expected number of lines.
+     */
+    static Hologram attach(TextDisplay display, List<String> lines) {
+        if (display.isDead()) return null;
+        String text = display.getText();
+        if (text == null || text.split("\n", -1).length != lines.size()) return null;
+
+        TextDisplayHologram hologram = new TextDisplayHologram(display, Arrays.asList(text.split("\n", -1)));
+        hologram.setLines(lines);
+        return hologram;
+    }
+
+    @Override
+    public int setLines(List<String> lines) {
+        if (display.isDead()) return 0;
+
+        int changed = 0;
+        for (int i = 0; i < shown.length && i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (!line.equals(shown[i])) {
+                shown[i] = line;
+                changed++;
+            }
+        }
+        // Текст один на всю сущность - пересылаем, только если что-то поменялось
+        if (changed > 0) display.setText(String.join("\n", shown));
+        return changed;
+    }
+
+    @Override
+    public void remove() {
+        if (!display.isDead()) display.remove();
+    }
+
+    @Override
+    public boolean contains(Entity entity) {
+        return display.getUniqueId().equals(entity.getUniqueId());
+    }
+
+    @Override
+    public boolean isValid() {
+        return !display.isDead();
+    }
+
+    private static String join(List<String> lines) {
+        return String.join("\n", lines);
+    }
+}
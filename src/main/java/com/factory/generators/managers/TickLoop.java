@@ -0,0 +1,132 @@
+package com.factory.generators.managers;
+
+import com.factory.generators.IronFactory;
+import com.factory.generators.models.MultiBlockStructure;
+import com.factory.generators.models.PlacedGenerator;
+import com.factory.generators.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main plugin loop, run every server tick.
+ * The once-per-second work (generator countdowns, drills, ailments) is sliced
+ * evenly across the 20 ticks of a cycle and bounded by a per-tick time budget;
+ * whatever doesn't fit is carried to the next tick instead of stalling the server.
+ */
+public class TickLoop implements Runnable {
+
+    private static final int CYCLE_TICKS = Constants.Timing.TICKS_PER_SECOND;
+
+    private final IronFactory plugin;
+    private final List<Phase<?>> phases = new ArrayList<>();
+    private int cycleTick = 0;
+    private int firstPhase = 0;
+
+    /**
+     * One kind of per-second work, walked in slices.
+     */
+    private abstract static class Phase<T> {
+        private final List<T> pass = new ArrayList<>();
+        private int cursor;
+
+        protected abstract void collect(List<T> out);
+
+        protected abstract void process(T item);
+
+        boolean isDone() {
+            return cursor >= pass.size();
+        }
+
+        void begin() {
+            pass.clear();
+            cursor = 0;
+            collect(pass);
+        }
+
+        /**
+         * Processes this tick's share of the pass: the remainder spread over the
+         * ticks left in the cycle, cut short by the deadline (at least one item).
+         */
+        void step(int ticksLeft, long deadlineNanos) {
+            int remaining = pass.size() - cursor;
+            int quota = (remaining + ticksLeft - 1) / ticksLeft;
+            for (int i = 0; i < quota; i++) {
+                T item = pass.get(cursor);
+                pass.set(cursor++, null);
+                process(item);
+                if (System.nanoTime() - deadlineNanos >= 0) break;
+            }
+        }
+    }
+
+    public TickLoop(IronFactory plugin) {
+        this.plugin = plugin;
+
+        phases.add(new Phase<PlacedGenerator>() {
+            @Override
+            protected void collect(List<PlacedGenerator> out) {
+                plugin.getGeneratorManager().collectTickable(out);
+            }
+
+            @Override
+            protected void process(PlacedGenerator generator) {
+                plugin.getGeneratorManager().tickLoaded(generator);
+            }
+        });
+        phases.add(new Phase<MultiBlockStructure>() {
+            @Override
+            protected void collect(List<MultiBlockStructure> out) {
+                plugin.getMultiBlockManager().beginTickPass(out);
+            }
+
+            @Override
+            protected void process(MultiBlockStructure structure) {
+                plugin.getMultiBlockManager().tickStructure(structure);
+            }
+        });
+        phases.add(new Phase<PlacedGenerator>() {
+            @Override
+            protected void collect(List<PlacedGenerator> out) {
+                plugin.getEventManager().collectAiling(out);
+            }
+
+            @Override
+            protected void process(PlacedGenerator generator) {
+                plugin.getEventManager().tickAilment(generator);
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + plugin.getConfigManager().getTickBudgetNanos();
+
+        if (cycleTick == 0) {
+            // Незаконченный проход продолжается в новом цикле, а не начинается заново
+            for (Phase<?> phase : phases) {
+                if (phase.isDone()) phase.begin();
+            }
+            plugin.getEventManager().checkEarthquake();
+            plugin.getHologramManager().updateVisibility();
+        }
+
+        // Генераторы по дедлайнам - каждый тик, остальное по очереди
+        plugin.getGeneratorManager().runDueGenerators(deadline);
+
+        int ticksLeft = CYCLE_TICKS - cycleTick;
+        for (int i = 0; i < phases.size(); i++) {
+            Phase<?> phase = phases.get((firstPhase + i) % phases.size());
+            if (!phase.isDone()) phase.step(ticksLeft, deadline);
+            if (System.nanoTime() - deadline >= 0) break;
+        }
+
+        // Дропы всех сработавших генераторов - одним сбросом, стаками по чанкам
+        plugin.getGeneratorManager().flushDrops();
+        plugin.getEffectDispatcher().flush();
+
+        // Round-robin: a different phase gets first claim on the budget next tick
+        firstPhase = (firstPhase + 1) % phases.size();
+        cycleTick = (cycleTick + 1) % CYCLE_TICKS;
+    }
+}
@@ -12,6 +12,7 @@ public class GeneratorDrop {
     private int amount;
     private double chance;
     private String customName;
+    private ItemStack prototype;  // Собирается один раз, дальше только clone()
 
     public GeneratorDrop(Material material, int amount, double chance) {
         this.material = material;
@@ -24,28 +25,30 @@ public class GeneratorDrop {
     }
 
     public ItemStack createItem() {
-        ItemStack item = new ItemStack(material, amount);
-
-        if (customName != null && !customName.isEmpty()) {
-            ItemMeta meta = item.getItemMeta();
-            if (meta != null) {
-                meta.setDisplayName(customName.replace("&", "§"));
-                item.setItemMeta(meta);
+        if (prototype == null) {
+            ItemStack item = new ItemStack(material, amount);
+
+            if (customName != null && !customName.isEmpty()) {
+                ItemMeta meta = item.getItemMeta();
+                if (meta != null) {
+                    meta.setDisplayName(customName.replace("&", "§"));
+                    item.setItemMeta(meta);
+                }
             }
+            prototype = item;
         }
-
-        return item;
+        return prototype.clone();
     }
 
     public Material getMaterial() { return material; }
-    public void setMaterial(Material material) { this.material = material; }
+    public void setMaterial(Material material) { this.material = material; this.prototype = null; }
 
     public int getAmount() { return amount; }
-    public void setAmount(int amount) { this.amount = amount; }
+    public void setAmount(int amount) { this.amount = amount; this.prototype = null; }
 
     public double getChance() { return chance; }
     public void setChance(double chance) { this.chance = chance; }
 
     public String getCustomName() { return customName; }
-    public void setCustomName(String name) { this.customName = name; }
+    public void setCustomName(String name) { this.customName = name; this.prototype = null; }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.factory.generators.models;
 
 import com.factory.generators.IronFactory;
+import com.factory.generators.utils.HologramTemplate;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
@@ -52,6 +53,12 @@ public class GeneratorType {
     private Material repairCostMaterial;
     private int repairCostPerPoint;
 
+    // Готовый предмет генератора; сбрасывается сеттерами, а при reload типы создаются заново
+    private ItemStack itemPrototype;
+    private static NamespacedKey generatorIdKey;
+    // Скомпилированные строки голограммы; %type% подставлен сразу
+    private List<HologramTemplate> hologramTemplates;
+
     public GeneratorType(String id) {
         this.id = id;
         this.drops = new ArrayList<>();
@@ -85,36 +92,47 @@ public class GeneratorType {
     }
 
     public ItemStack createItem(int amount) {
-        ItemStack item = new ItemStack(itemMaterial, amount);
-        ItemMeta meta = item.getItemMeta();
+        if (itemPrototype == null) {
+            ItemStack item = new ItemStack(itemMaterial, 1);
+            ItemMeta meta = item.getItemMeta();
 
-        if (meta != null) {
-            meta.setDisplayName(colorize(name));
+            if (meta != null) {
+                meta.setDisplayName(colorize(name));
 
-            List<String> coloredLore = new ArrayList<>();
-            for (String line : lore) {
-                coloredLore.add(colorize(line));
-            }
-            meta.setLore(coloredLore);
+                List<String> coloredLore = new ArrayList<>();
+                for (String line : lore) {
+                    coloredLore.add(colorize(line));
+                }
+                meta.setLore(coloredLore);
 
-            meta.addEnchant(Enchantment.DURABILITY, 1, true);
-            meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+                meta.addEnchant(Enchantment.DURABILITY, 1, true);
+                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
 
-            NamespacedKey key = new NamespacedKey(IronFactory.getInstance(), "generator_id");
-            meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, id);
+                meta.getPersistentDataContainer().set(getGeneratorIdKey(), PersistentDataType.STRING, id);
 
-            item.setItemMeta(meta);
+                item.setItemMeta(meta);
+            }
+            itemPrototype = item;
         }
 
+        ItemStack item = itemPrototype.clone();
+        item.setAmount(amount);
         return item;
     }
 
+    private static NamespacedKey getGeneratorIdKey() {
+        if (generatorIdKey == null) {
+            generatorIdKey = new NamespacedKey(IronFactory.getInstance(), "generator_id");
+        }
+        return generatorIdKey;
+    }
+
     public static String getGeneratorId(ItemStack item) {
         if (item == null || !item.hasItemMeta()) return null;
         ItemMeta meta = item.getItemMeta();
         if (meta == null) return null;
 
-        NamespacedKey key = new NamespacedKey(IronFactory.getInstance(), "generator_id");
+        NamespacedKey key = getGeneratorIdKey();
         if (meta.getPersistentDataContainer().has(key, PersistentDataType.STRING)) {
             return meta.getPersistentDataContainer().get(key, PersistentDataType.STRING);
         }
@@ -127,11 +145,11 @@ public class GeneratorType {
 
     public String getId() { return id; }
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; this.itemPrototype = null; this.hologramTemplates = null; }
     public List<String> getLore() { return lore; }
-    public void setLore(List<String> lore) { this.lore = lore; }
+    public void setLore(List<String> lore) { this.lore = lore; this.itemPrototype = null; }
     public Material getItemMaterial() { return itemMaterial; }
-    public void setItemMaterial(Material material) { this.itemMaterial = material; }
+    public void setItemMaterial(Material material) { this.itemMaterial = material; this.itemPrototype = null; }
     public Material getBlockMaterial() { return blockMaterial; }
     public void setBlockMaterial(Material material) { this.blockMaterial = material; }
     public int getDelay() { return delay; }
@@ -140,7 +158,11 @@ public class GeneratorType {
     public void setDrops(List<GeneratorDrop> drops) { this.drops = drops; }
     public void addDrop(GeneratorDrop drop) { this.drops.add(drop); }
     public List<String> getHologramLines() { return hologramLines; }
-    public void setHologramLines(List<String> lines) { this.hologramLines = lines; }
+    public void setHologramLines(List<String> lines) { this.hologramLines = lines; this.hologramTemplates = null; }
+    public List<HologramTemplate> getHologramTemplates() {
+        if (hologramTemplates == null) hologramTemplates = HologramTemplate.compileAll(hologramLines, name);
+        return hologramTemplates;
+    }
     public double getHologramHeight() { return hologramHeight; }
     public void setHologramHeight(double height) { this.hologramHeight = height; }
     public boolean isHologramEnabled() { return hologramEnabled; }
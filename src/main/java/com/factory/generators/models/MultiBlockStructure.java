@@ -1,5 +1,6 @@
 package com.factory.generators.models;
 
+import com.factory.generators.utils.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -24,6 +25,7 @@ public class MultiBlockStructure {
     private String drillTypeId;
     private String pipeTypeId;
     private String pumpTypeId;
+    private boolean dirty = true;  // изменена с последнего сохранения (прогресс таймера не в счёт)
 
     public MultiBlockStructure(UUID ownerUUID, Location drillLocation) {
         this.ownerUUID = ownerUUID;
@@ -96,6 +98,7 @@ public class MultiBlockStructure {
 
     public void incrementGenerated() {
         totalGenerated++;
+        dirty = true;
     }
 
     public int getRemainingTicks(int maxDelay) {
@@ -103,10 +106,7 @@ public class MultiBlockStructure {
     }
 
     public String formatTime(int remainingTicks) {
-        int totalSeconds = remainingTicks / 20;
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        return String.format("%d:%02d", minutes, seconds);
+        return Utils.formatTime(remainingTicks);
     }
 
     public UUID getOwnerUUID() { return ownerUUID; }
@@ -116,23 +116,27 @@ public class MultiBlockStructure {
     public int getBaseZ() { return baseZ; }
 
     public boolean isComplete() { return complete; }
-    public void setComplete(boolean complete) { this.complete = complete; }
+    public void setComplete(boolean complete) { this.complete = complete; this.dirty = true; }
 
     public int getCurrentTick() { return currentTick; }
     public void setCurrentTick(int tick) { this.currentTick = tick; }
 
     public long getTotalGenerated() { return totalGenerated; }
-    public void setTotalGenerated(long total) { this.totalGenerated = total; }
+    public void setTotalGenerated(long total) { this.totalGenerated = total; this.dirty = true; }
 
     public long getPlacedTime() { return placedTime; }
     public void setPlacedTime(long time) { this.placedTime = time; }
 
     public String getDrillTypeId() { return drillTypeId; }
-    public void setDrillTypeId(String id) { this.drillTypeId = id; }
+    public void setDrillTypeId(String id) { this.drillTypeId = id; this.dirty = true; }
 
     public String getPipeTypeId() { return pipeTypeId; }
-    public void setPipeTypeId(String id) { this.pipeTypeId = id; }
+    public void setPipeTypeId(String id) { this.pipeTypeId = id; this.dirty = true; }
 
     public String getPumpTypeId() { return pumpTypeId; }
-    public void setPumpTypeId(String id) { this.pumpTypeId = id; }
-}
\ No newline at end of file
+    public void setPumpTypeId(String id) { this.pumpTypeId = id; this.dirty = true; }
+
+    public boolean isDirty() { return dirty; }
+    public void markDirty() { this.dirty = true; }
+    public void clearDirty() { this.dirty = false; }
+}
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.factory.generators.models;
 
+import com.factory.generators.utils.BlockMap;
+import com.factory.generators.utils.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class PlacedGenerator {
 
@@ -12,6 +18,7 @@ public class PlacedGenerator {
     private UUID ownerUUID;
     private final String worldName;
     private final int x, y, z;
+    private final long blockKey;
     private int currentTick;
     private long totalGenerated;
     private long placedTime;
@@ -19,6 +26,22 @@ public class PlacedGenerator {
     private int upgradeLevel;
     private int mineHealth;  // Здоровье рудника (0-100)
     private GeneratorAilment ailment;  // Текущее заболевание
+    private long lastEvaluated;  // Когда чанк выгрузился (мс), 0 - считается вживую
+    private long[] storage;  // Внутреннее хранилище: количество по индексу дропа
+    private long storedTotal;
+    private boolean dirty = true;  // изменён с последнего сохранения (прогресс таймера не в счёт)
+    private Consumer<PlacedGenerator> dirtyListener;  // узнаёт о первом изменении после сохранения
+    private BiConsumer<PlacedGenerator, UUID> ownerListener;  // переиндексирует владельца, получает прежнего
+
+    // Состояние планировщика (в файл не сохраняется)
+    private int heapIndex = -1;
+    private long wakeTick;
+    private long nextFireTick;
+    private long nextEventTick;
+    private int scheduledDelay;
+    private boolean chunkLoaded;
+    private boolean registered;
+    private int ownerIndex = -1;
 
     public PlacedGenerator(String typeId, UUID ownerUUID, Location location) {
         this.typeId = typeId;
@@ -27,6 +50,7 @@ public class PlacedGenerator {
         this.x = location.getBlockX();
         this.y = location.getBlockY();
         this.z = location.getBlockZ();
+        this.blockKey = BlockMap.pack(x, y, z);
         this.currentTick = 0;
         this.totalGenerated = 0;
         this.placedTime = System.currentTimeMillis();
@@ -42,6 +66,7 @@ public class PlacedGenerator {
         this.x = x;
         this.y = y;
         this.z = z;
+        this.blockKey = BlockMap.pack(x, y, z);
         this.currentTick = 0;
         this.totalGenerated = 0;
         this.placedTime = System.currentTimeMillis();
@@ -58,12 +83,18 @@ public class PlacedGenerator {
 
     public static final UUID NO_OWNER = new UUID(0, 0);
 
+    /**
+     * String key used in data files only; in memory generators are indexed by {@link #getBlockKey()}.
+     */
     public String getLocationKey() {
         return worldName + ";" + x + ";" + y + ";" + z;
     }
 
-    public static String createLocationKey(Location loc) {
-        return loc.getWorld().getName() + ";" + loc.getBlockX() + ";" + loc.getBlockY() + ";" + loc.getBlockZ();
+    /**
+     * Packed block coordinates within the world, see {@link BlockMap#pack(int, int, int)}.
+     */
+    public long getBlockKey() {
+        return blockKey;
     }
 
     public void tick(int amount) {
@@ -78,6 +109,7 @@ public class PlacedGenerator {
 
     public void incrementGenerated() {
         totalGenerated++;
+        markDirty();
     }
 
     public int getRemainingTicks(int maxDelay) {
@@ -89,10 +121,7 @@ public class PlacedGenerator {
     }
 
     public String formatTime(int remainingTicks) {
-        int totalSeconds = remainingTicks / 20;
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        return String.format("%d:%02d", minutes, seconds);
+        return Utils.formatTime(remainingTicks);
     }
 
     public String getTypeId() { return typeId; }
@@ -103,31 +132,95 @@ public class PlacedGenerator {
     public int getZ() { return z; }
 
     public void setOwnerUUID(UUID uuid) {
+        UUID previous = ownerUUID;
+        if (Objects.equals(previous, uuid)) return;
         this.ownerUUID = uuid;
+        markDirty();
+        if (ownerListener != null) ownerListener.accept(this, previous);
     }
 
     public int getCurrentTick() { return currentTick; }
     public void setCurrentTick(int tick) { this.currentTick = tick; }
 
     public long getTotalGenerated() { return totalGenerated; }
-    public void setTotalGenerated(long total) { this.totalGenerated = total; }
+    public void setTotalGenerated(long total) { this.totalGenerated = total; markDirty(); }
 
     public long getPlacedTime() { return placedTime; }
     public void setPlacedTime(long time) { this.placedTime = time; }
 
     public boolean isBroken() { return broken; }
-    public void setBroken(boolean broken) { this.broken = broken; }
+    public void setBroken(boolean broken) { this.broken = broken; markDirty(); }
 
     public int getUpgradeLevel() { return upgradeLevel; }
-    public void setUpgradeLevel(int level) { this.upgradeLevel = level; }
+    public void setUpgradeLevel(int level) { this.upgradeLevel = level; markDirty(); }
 
     public int getMineHealth() { return mineHealth; }
-    public void setMineHealth(int health) { this.mineHealth = Math.min(health, 100); }
-    public void addMineHealth(int health) { this.mineHealth = Math.min(mineHealth + health, 100); }
+    public void setMineHealth(int health) { this.mineHealth = Math.min(health, 100); markDirty(); }
+    public void addMineHealth(int health) { this.mineHealth = Math.min(mineHealth + health, 100); markDirty(); }
     public boolean isMineRepaired() { return mineHealth >= 100; }
 
+    public long getStored(int dropIndex) {
+        return storage == null || dropIndex >= storage.length ? 0 : storage[dropIndex];
+    }
+
+    public void setStored(int dropIndex, long amount) {
+        if (storage == null || dropIndex >= storage.length) {
+            if (amount == 0) return;
+            storage = storage == null ? new long[dropIndex + 1] : Arrays.copyOf(storage, dropIndex + 1);
+        }
+        storedTotal += amount - storage[dropIndex];
+        storage[dropIndex] = amount;
+        markDirty();
+    }
+
+    public int getStorageSlots() { return storage == null ? 0 : storage.length; }
+    public long getStoredTotal() { return storedTotal; }
+
+    public long getLastEvaluated() { return lastEvaluated; }
+    public void setLastEvaluated(long time) { this.lastEvaluated = time; markDirty(); }
+
+    public boolean isDirty() { return dirty; }
+
+    public void markDirty() {
+        if (dirty) return;
+        dirty = true;
+        if (dirtyListener != null) dirtyListener.accept(this);
+    }
+
+    public void clearDirty() { this.dirty = false; }
+
+    /**
+     * Set while the generator is registered: called when a clean generator changes,
+     * so saves only look at what changed.
+     */
+    public void setDirtyListener(Consumer<PlacedGenerator> listener) { this.dirtyListener = listener; }
+
+    /**
+     * Set while the generator is registered: called with the previous owner
+     * after the owner changes, so the owner index follows any caller.
+     */
+    public void setOwnerListener(BiConsumer<PlacedGenerator, UUID> listener) { this.ownerListener = listener; }
+
     public GeneratorAilment getAilment() { return ailment; }
     public void setAilment(GeneratorAilment ailment) { this.ailment = ailment; }
     public boolean hasAilment() { return ailment != null && ailment.isActive(); }
     public void cureAilment() { this.ailment = null; }
+
+    // Планировщик производства
+    public int getHeapIndex() { return heapIndex; }
+    public void setHeapIndex(int index) { this.heapIndex = index; }
+    public long getWakeTick() { return wakeTick; }
+    public void setWakeTick(long tick) { this.wakeTick = tick; }
+    public long getNextFireTick() { return nextFireTick; }
+    public void setNextFireTick(long tick) { this.nextFireTick = tick; }
+    public long getNextEventTick() { return nextEventTick; }
+    public void setNextEventTick(long tick) { this.nextEventTick = tick; }
+    public int getScheduledDelay() { return scheduledDelay; }
+    public void setScheduledDelay(int delay) { this.scheduledDelay = delay; }
+    public boolean isChunkLoaded() { return chunkLoaded; }
+    public void setChunkLoaded(boolean loaded) { this.chunkLoaded = loaded; }
+    public boolean isRegistered() { return registered; }
+    public void setRegistered(boolean registered) { this.registered = registered; }
+    public int getOwnerIndex() { return ownerIndex; }
+    public void setOwnerIndex(int index) { this.ownerIndex = index; }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.factory.generators.utils;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Map from block positions to values: one {@link LongObjectMap} per world,
+ * keyed by {@link #pack(int, int, int)}. Lookups by Location allocate nothing.
+ *
+ * @param <V> value type
+ */
+public class BlockMap<V> {
+
+    private final Map<String, LongObjectMap<V>> worlds = new HashMap<>();
+    private int size;
+
+    /**
+     * Packs block coordinates into a long: 26 bits x, 26 bits z, 12 bits y
+     * (same layout as vanilla BlockPos).
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public V get(String worldName, long blockKey) {
+        LongObjectMap<V> map = worlds.get(worldName);
+        return map == null ? null : map.get(blockKey);
+    }
+
+    public V get(Location location) {
+        World world = location.getWorld();
+        if (world == null) return null;
+        return get(world.getName(), pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+    }
+
+    /**
+     * @return the previous value at this position, or null
+     */
+    public V put(String worldName, long blockKey, V value) {
+        V previous = worlds.computeIfAbsent(worldName, k -> new LongObjectMap<>()).put(blockKey, value);
+        if (previous == null) size++;
+        return previous;
+    }
+
+    public V remove(String worldName, long blockKey) {
+        LongObjectMap<V> map = worlds.get(worldName);
+        if (map == null) return null;
+        V removed = map.remove(blockKey);
+        if (removed != null) {
+            size--;
+            if (map.isEmpty()) worlds.remove(worldName);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the entry only if it currently maps to {@code value} (identity).
+     */
+    public boolean remove(String worldName, long blockKey, V value) {
+        LongObjectMap<V> map = worlds.get(worldName);
+        if (map == null || !map.remove(blockKey, value)) return false;
+        size--;
+        if (map.isEmpty()) worlds.remove(worldName);
+        return true;
+    }
+
+    public void clear() {
+        worlds.clear();
+        size = 0;
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (LongObjectMap<V> map : worlds.values()) {
+            map.forEachValue(action);
+        }
+    }
+}
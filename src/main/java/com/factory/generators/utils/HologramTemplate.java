@@ -0,0 +1,120 @@
+package com.factory.generators.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hologram line compiled once into literal segments and placeholders
+ * ({@code %time%}, {@code %total%}, {@code %type%}, {@code %status%}),
+ * so rendering is a single append pass instead of a chain of replace() calls.
+ * Color codes in literals are translated at compile time.
+ */
+public final class HologramTemplate {
+
+    private static final byte LITERAL = 0;
+    private static final byte TIME = 1;
+    private static final byte TOTAL = 2;
+    private static final byte STATUS = 3;
+
+    private final byte[] kinds;
+    private final String[] literals;
+    private final boolean hasTime;
+
+    private HologramTemplate(byte[] kinds, String[] literals, boolean hasTime) {
+        this.kinds = kinds;
+        this.literals = literals;
+        this.hasTime = hasTime;
+    }
+
+    /**
+     * @param line     raw line with & color codes
+     * @param typeName value for {@code %type%}; it never changes for a type, so it is
+     *                 inlined as a literal. Null leaves the placeholder as text.
+     */
+    @NotNull
+    public static HologramTemplate compile(@NotNull String line, @Nullable String typeName) {
+        if (typeName != null) line = line.replace("%type%", typeName);
+
+        List<Byte> kinds = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean hasTime = false;
+
+        int i = 0;
+        while (i < line.length()) {
+            byte kind = LITERAL;
+            int length = 0;
+            if (line.startsWith("%time%", i)) {
+                kind = TIME;
+                length = 6;
+                hasTime = true;
+            } else if (line.startsWith("%total%", i)) {
+                kind = TOTAL;
+                length = 7;
+            } else if (line.startsWith("%status%", i)) {
+                kind = STATUS;
+                length = 8;
+            }
+
+            if (kind == LITERAL) {
+                literal.append(line.charAt(i++));
+                continue;
+            }
+            if (literal.length() > 0) {
+                kinds.add(LITERAL);
+                literals.add(color(literal.toString()));
+                literal.setLength(0);
+            }
+            kinds.add(kind);
+            literals.add(null);
+            i += length;
+        }
+        if (literal.length() > 0) {
+            kinds.add(LITERAL);
+            literals.add(color(literal.toString()));
+        }
+
+        byte[] kindArray = new byte[kinds.size()];
+        for (int k = 0; k < kindArray.length; k++) kindArray[k] = kinds.get(k);
+        return new HologramTemplate(kindArray, literals.toArray(new String[0]), hasTime);
+    }
+
+    @NotNull
+    public static List<HologramTemplate> compileAll(@NotNull List<String> lines, @Nullable String typeName) {
+        List<HologramTemplate> templates = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            templates.add(compile(line, typeName));
+        }
+        return templates;
+    }
+
+    public boolean hasTime() {
+        return hasTime;
+    }
+
+    /**
+     * Renders the line into {@code buffer} (cleared first).
+     *
+     * @param status already colored status text
+     */
+    @NotNull
+    public String render(@NotNull StringBuilder buffer, int remainingTicks, long total, @NotNull String status) {
+        buffer.setLength(0);
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case TIME -> buffer.append(Utils.formatTime(remainingTicks));
+                case TOTAL -> buffer.append(total);
+                case STATUS -> buffer.append(status);
+                default -> buffer.append(literals[i]);
+            }
+        }
+        return buffer.toString();
+    }
+
+    private static String color(String text) {
+        return text.replace('&', '§');
+    }
+}
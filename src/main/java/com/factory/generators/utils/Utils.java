@@ -44,11 +44,23 @@ public class Utils {
     @NotNull
     public static String formatTime(int ticks) {
         int totalSeconds = ticks / Constants.Timing.TICKS_PER_SECOND;
+        if (totalSeconds >= 0 && totalSeconds < TIME_TABLE.length) return TIME_TABLE[totalSeconds];
         int minutes = totalSeconds / 60;
         int seconds = totalSeconds % 60;
         return String.format("%d:%02d", minutes, seconds);
     }
 
+    // Готовые строки "м:сс" на первые 100 минут - таймеры голограмм обновляются каждую секунду
+    private static final String[] TIME_TABLE = buildTimeTable(100 * 60);
+
+    private static String[] buildTimeTable(int size) {
+        String[] table = new String[size];
+        for (int s = 0; s < size; s++) {
+            table[s] = (s / 60) + ":" + (s % 60 < 10 ? "0" : "") + (s % 60);
+        }
+        return table;
+    }
+
     /**
      * Converts Material enum name to readable format.
      * Example: IRON_INGOT -> Iron Ingot
@@ -187,4 +199,42 @@ public class Utils {
     public static int clamp(int value, int min, int max) {
         return Math.max(min, Math.min(max, value));
     }
+
+    /**
+     * Samples the number of Bernoulli trials up to and including the first success.
+     *
+     * @param random Random source
+     * @param p Success probability per trial
+     * @return Trial index of the first success (>= 1), or Long.MAX_VALUE if p <= 0
+     */
+    public static long sampleGeometric(@NotNull java.util.Random random, double p) {
+        if (p <= 0) return Long.MAX_VALUE;
+        if (p >= 1) return 1;
+        double u = 1.0 - random.nextDouble();  // (0, 1]
+        double trials = Math.floor(Math.log(u) / Math.log1p(-p));
+        return trials >= Long.MAX_VALUE - 1 ? Long.MAX_VALUE : 1 + (long) trials;
+    }
+
+    /**
+     * Samples the number of successes in n Bernoulli trials (exact, via geometric gaps).
+     *
+     * @param random Random source
+     * @param n Number of trials
+     * @param p Success probability per trial
+     * @return Number of successes
+     */
+    public static long sampleBinomial(@NotNull java.util.Random random, long n, double p) {
+        if (n <= 0 || p <= 0) return 0;
+        if (p >= 1) return n;
+        if (p > 0.5) return n - sampleBinomial(random, n, 1.0 - p);
+
+        long successes = 0;
+        long position = 0;
+        while (true) {
+            long gap = sampleGeometric(random, p);
+            if (gap > n - position) return successes;
+            position += gap;
+            successes++;
+        }
+    }
 }
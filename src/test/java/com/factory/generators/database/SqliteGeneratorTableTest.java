@@ -0,0 +1,207 @@
+package com.factory.generators.database;
+
+import com.factory.generators.models.PlacedGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip of the generator table on a temporary SQLite file through the
+ * write and load paths of {@link SqlGeneratorStorage}: deletes, then upserts by
+ * location key in one transaction, failed writes kept pending; loading a world
+ * page by page by id.
+ */
+class SqliteGeneratorTableTest {
+
+    private static final UUID OWNER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @TempDir
+    Path dir;
+
+    private DatabaseManager database;
+    // Состояние между записями, как в SqlGeneratorStorage
+    private final Map<String, SqlGeneratorStorage.Row> pendingRows = new LinkedHashMap<>();
+    private final Set<String> pendingDeletes = new LinkedHashSet<>();
+
+    @BeforeEach
+    void connect() {
+        database = new DatabaseManager(config("data.db"));
+        assertTrue(database.connect());
+    }
+
+    private DatabaseConfig config(String file) {
+        return new DatabaseConfig.Builder()
+                .type(DatabaseConfig.DatabaseType.SQLITE)
+                .filePath(dir.resolve(file).toString())
+                .maxPoolSize(2)
+                .build();
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    @Test
+    void upsertUpdatesTheRowInPlace() {
+        assertTrue(write(List.of(), row("world", 1, "iron", 10)));
+        long id = select(key("world", 1)).id;
+
+        assertTrue(write(List.of(), row("world", 1, "iron", 25)));
+
+        Stored stored = select(key("world", 1));
+        assertEquals(id, stored.id);
+        assertEquals(25, stored.totalGenerated);
+        assertEquals(1, count());
+    }
+
+    @Test
+    void deleteRemovesTheRow() {
+        assertTrue(write(List.of(), row("world", 1, "iron", 0), row("world", 2, "iron", 0)));
+
+        assertTrue(write(List.of(key("world", 1))));
+
+        assertNull(select(key("world", 1)));
+        assertNotNull(select(key("world", 2)));
+        assertEquals(1, count());
+    }
+
+    @Test
+    void replacingAtTheSameKeyKeepsTheNewGenerator() {
+        assertTrue(write(List.of(), row("world", 1, "iron", 40)));
+
+        // Сломали и поставили заново между двумя сбросами: удаление идёт раньше новой строки
+        assertTrue(write(List.of(key("world", 1)), row("world", 1, "gold", 0)));
+
+        Stored stored = select(key("world", 1));
+        assertNotNull(stored);
+        assertEquals("gold", stored.typeId);
+        assertEquals(0, stored.totalGenerated);
+        assertEquals(1, count());
+    }
+
+    @Test
+    void aFailedWriteStaysPendingAndIsRetriedWithTheNextOne() {
+        DatabaseManager unreachable = new DatabaseManager(config("other.db"));
+        assertTrue(unreachable.connect());
+        unreachable.close();
+
+        assertFalse(SqlGeneratorStorage.write(unreachable, pendingRows, pendingDeletes,
+                List.of(row("world", 1, "iron", 5), row("world", 2, "iron", 7)), List.of()));
+        assertEquals(2, pendingRows.size());
+
+        // Следующая запись несёт и неудавшуюся: удаление отменяет ещё не записанную строку
+        assertTrue(write(List.of(key("world", 2)), row("world", 3, "iron", 0)));
+
+        assertEquals(5, select(key("world", 1)).totalGenerated);
+        assertNull(select(key("world", 2)));
+        assertNotNull(select(key("world", 3)));
+        assertTrue(pendingRows.isEmpty());
+        assertTrue(pendingDeletes.isEmpty());
+    }
+
+    @Test
+    void keysetPagesReadEveryRowOfTheWorldOnce() throws SQLException {
+        List<SqlGeneratorStorage.Row> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) rows.add(row("world", i, "iron", i));
+        for (int i = 0; i < 7; i++) rows.add(row("world_nether", i, "iron", i));
+        assertTrue(write(List.of(), rows.toArray(new SqlGeneratorStorage.Row[0])));
+        assertTrue(write(List.of(key("world", 3), key("world", 17))));
+
+        List<String> world = new ArrayList<>();
+        int pages = readWorld("world", 10, world);
+        assertEquals(23, world.size());
+        assertEquals(23, new HashSet<>(world).size());
+        assertFalse(world.contains(key("world", 3)));
+        assertEquals(3, pages);
+
+        List<String> nether = new ArrayList<>();
+        readWorld("world_nether", 10, nether);
+        assertEquals(7, nether.size());
+
+        Set<String> worlds = new HashSet<>();
+        assertTrue(database.executeQueryWithCallback("select_worlds", rs -> {
+            while (rs.next()) worlds.add(rs.getString(1));
+            return true;
+        }));
+        assertEquals(Set.of("world", "world_nether"), worlds);
+    }
+
+    @Test
+    void aPageBoundaryAtTheLastRowEndsWithAnEmptyPage() throws SQLException {
+        List<SqlGeneratorStorage.Row> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) rows.add(row("world", i, "iron", i));
+        assertTrue(write(List.of(), rows.toArray(new SqlGeneratorStorage.Row[0])));
+
+        List<String> keys = new ArrayList<>();
+        assertEquals(3, readWorld("world", 10, keys));
+        assertEquals(20, keys.size());
+    }
+
+    private boolean write(List<String> deletes, SqlGeneratorStorage.Row... rows) {
+        return SqlGeneratorStorage.write(database, pendingRows, pendingDeletes, List.of(rows), deletes);
+    }
+
+    private int readWorld(String world, int pageSize, List<String> keys) throws SQLException {
+        return SqlGeneratorStorage.readWorld(database, world, pageSize, rs -> keys.add(rs.getString("location_key")));
+    }
+
+    private static String key(String world, int x) {
+        return world + ";" + x + ";64;0";
+    }
+
+    private static SqlGeneratorStorage.Row row(String world, int x, String typeId, long totalGenerated) {
+        PlacedGenerator generator = new PlacedGenerator(typeId, OWNER, world, x, 64, 0);
+        generator.setTotalGenerated(totalGenerated);
+        return new SqlGeneratorStorage.Row(generator, 0, null);
+    }
+
+    private Stored select(String key) {
+        Stored[] stored = new Stored[1];
+        assertTrue(database.executeQueryWithCallback("select_by_location", rs -> {
+            if (rs.next()) stored[0] = new Stored(rs);
+            return true;
+        }, key));
+        return stored[0];
+    }
+
+    private int count() {
+        int[] count = new int[1];
+        assertTrue(database.executeQueryWithCallback("select_all", rs -> {
+            while (rs.next()) count[0]++;
+            return true;
+        }));
+        return count[0];
+    }
+
+    private static final class Stored {
+        final long id;
+        final String typeId;
+        final long totalGenerated;
+
+        Stored(ResultSet rs) throws SQLException {
+            this.id = rs.getLong("id");
+            this.typeId = rs.getString("type_id");
+            this.totalGenerated = rs.getLong("total_generated");
+        }
+    }
+}